@@ -0,0 +1,21 @@
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the chess benchmarks with the GC profiler attached so every result
+ * reports its allocation rate next to its throughput. Any standard JMH command
+ * line option can be passed through, for example
+ * {@code java -jar benchmarks-test-dependencies.jar Perft -p depth=4}.
+ */
+public class Main {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.MoveList;
+import chess.engine.Evaluation;
+import chess.engine.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaf evaluation throughput: every position two plies from the benchmark
+ * position is made, evaluated and unmade, the way a search visits its leaves.
+ * {@code fullScan} evaluates each leaf by scanning the board; {@code incremental}
+ * updates the running sums of an {@link Evaluator} on each move instead. The
+ * {@code evaluations} counter is reported as evaluations per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame", "endgame"})
+    public String position;
+
+    private ChessBoard board;
+    private final MoveList rootMoves = new MoveList();
+    private final MoveList replies = new MoveList();
+    private final Evaluator evaluator = new Evaluator(2);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Evaluations {
+        public long evaluations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            evaluations = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        board = new ChessBoard(Positions.load(position).getBoard());
+        board.generateMoves(rootMoves);
+        evaluator.reset(board);
+    }
+
+    @Benchmark
+    public int fullScan(Evaluations counter) {
+        int sum = 0;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            long rootUndo = board.makeMove(rootMoves.get(i));
+            replies.clear();
+            board.generateMoves(replies);
+            for (int j = 0; j < replies.size(); j++) {
+                long undo = board.makeMove(replies.get(j));
+                sum += Evaluation.evaluate(board);
+                board.unmakeMove(undo);
+            }
+            counter.evaluations += replies.size();
+            board.unmakeMove(rootUndo);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int incremental(Evaluations counter) {
+        int sum = 0;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int rootMove = rootMoves.get(i);
+            evaluator.makeMove(board, rootMove);
+            long rootUndo = board.makeMove(rootMove);
+            replies.clear();
+            board.generateMoves(replies);
+            for (int j = 0; j < replies.size(); j++) {
+                int reply = replies.get(j);
+                evaluator.makeMove(board, reply);
+                long undo = board.makeMove(reply);
+                sum += evaluator.evaluate(board.getTeamTurn());
+                board.unmakeMove(undo);
+                evaluator.unmakeMove();
+            }
+            counter.evaluations += replies.size();
+            board.unmakeMove(rootUndo);
+            evaluator.unmakeMove();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,164 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the {@link ChessGame} calls the server makes on every move.
+ * <p>
+ * A game works out the legal moves of a position once and keeps them until
+ * the position changes. The plain benchmarks ask the same unchanged game
+ * every time, so they measure that warm lookup. The {@code cold} variants
+ * drop the cached moves before each call, so they measure move generation
+ * itself, as the first call after a move does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+    /** Both knights out and back again, returning to the starting position. */
+    private static final ChessMove[] KNIGHT_SHUFFLE = {
+            ChessMove.of(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null),
+            ChessMove.of(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null),
+            ChessMove.of(ChessPosition.of(3, 6), ChessPosition.of(1, 7), null),
+            ChessMove.of(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null),
+    };
+
+    @Param({"start", "kiwipete", "middlegame"})
+    public String position;
+
+    private final MoveList moves = new MoveList();
+    private ChessGame game;
+    private ChessGame shuffleGame;
+    private ChessGame checkmate;
+    private ChessGame stalemate;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(position);
+        shuffleGame = Positions.load("start");
+        checkmate = Positions.load("checkmate");
+        stalemate = Positions.load("stalemate");
+    }
+
+    /** Valid moves of every piece belonging to the side to move, from the cached moves. */
+    @Benchmark
+    public void validMoves(Blackhole bh) {
+        allValidMoves(game, bh);
+    }
+
+    /** Valid moves of every piece belonging to the side to move, generated afresh. */
+    @Benchmark
+    public void validMovesCold(Blackhole bh) {
+        allValidMoves(cold(game), bh);
+    }
+
+    /** All legal moves of the side to move through the encoded move API, from the cached moves. */
+    @Benchmark
+    public int generateMoves() {
+        moves.clear();
+        game.generateMoves(moves);
+        return moves.size();
+    }
+
+    /** All legal moves of the side to move through the encoded move API, generated afresh. */
+    @Benchmark
+    public int generateMovesCold() {
+        moves.clear();
+        cold(game).generateMoves(moves);
+        return moves.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void makeMove() throws InvalidMoveException {
+        for (ChessMove move : KNIGHT_SHUFFLE) {
+            shuffleGame.makeMove(move);
+        }
+        // Start the move history over so it does not grow for the whole run
+        shuffleGame.setBoard(shuffleGame.getBoard());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateCold() {
+        return cold(game).isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMatedCold() {
+        return cold(checkmate).isInCheckmate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateCold() {
+        return cold(game).isInStalemate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateStalemated() {
+        return stalemate.isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInStalemateStalematedCold() {
+        return cold(stalemate).isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * The post-move bookkeeping the server does: checkmate, stalemate and
+     * check in one call, from the cached moves.
+     */
+    @Benchmark
+    public ChessGame.GameStatus status() {
+        return game.status(ChessGame.TeamColor.WHITE);
+    }
+
+    /** The post-move bookkeeping the server does, with the moves generated afresh as after a real move. */
+    @Benchmark
+    public ChessGame.GameStatus statusCold() {
+        return cold(game).status(ChessGame.TeamColor.WHITE);
+    }
+
+    private static void allValidMoves(ChessGame game, Blackhole bh) {
+        long pieces = game.getBoard().getOccupancy(game.getTeamTurn());
+        while (pieces != 0) {
+            int sq = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            bh.consume(game.validMoves(ChessPosition.of(sq / 8 + 1, sq % 8 + 1)));
+        }
+    }
+
+    /**
+     * Drops the game's cached legal moves by setting its own board again,
+     * which leaves the position as it was.
+     */
+    private static ChessGame cold(ChessGame game) {
+        game.setBoard(game.getBoard());
+        return game;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.Engine;
+import chess.engine.SearchLimits;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth over the whole {@link Positions#SUITE} with a
+ * parallel search. Dividing the single-thread score by a multi-thread score
+ * gives the speedup at that thread count; the {@code nodes} counter shows how
+ * much of the extra work the helper threads did.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"8"})
+    public int depth;
+
+    @Param({"64"})
+    public int hashMegabytes;
+
+    private ChessGame[] suite;
+    private Engine engine;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        suite = Positions.SUITE.stream().map(Positions::load).toArray(ChessGame[]::new);
+        engine = new Engine(hashMegabytes, threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public int searchSuite(Nodes counter) {
+        int moves = 0;
+        for (ChessGame game : suite) {
+            engine.newGame();
+            var result = engine.search(game, SearchLimits.depth(depth));
+            counter.nodes += result.nodes();
+            moves += result.bestMove();
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth using the
+ * public low-level {@code chess} API: {@link ChessBoard#generateMoves} into one
+ * reusable {@link MoveList} per ply and {@link ChessBoard#makeMove(int)} /
+ * {@link ChessBoard#unmakeMove} to walk the tree.
+ */
+public final class Perft {
+    private final MoveList[] lists;
+
+    public Perft(int maxDepth) {
+        lists = new MoveList[maxDepth + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    public long perft(ChessGame game, int depth) {
+        return perft(game.getBoard(), depth);
+    }
+
+    private long perft(ChessBoard board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth];
+        moves.clear();
+        board.generateMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            long undo = board.makeMove(moves.get(i));
+            nodes += perft(board, depth - 1);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft throughput from the benchmark positions. Besides the usual score, the
+ * {@code nodes} counter is reported as leaf nodes per second.
+ * <p>
+ * Depth 5 from the busier positions takes several seconds per operation; narrow
+ * the run with {@code -p position=start -p depth=5} when only one case matters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame"})
+    public String position;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int depth;
+
+    private ChessGame game;
+    private Perft perft;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(position);
+        perft = new Perft(depth);
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft.perft(game, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
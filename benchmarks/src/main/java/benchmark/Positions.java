@@ -0,0 +1,49 @@
+package benchmark;
+
+import chess.ChessGame;
+
+import java.util.List;
+
+/**
+ * Named positions shared by the benchmarks, written in Forsyth–Edwards
+ * Notation.
+ */
+public final class Positions {
+    /** The standard starting position. */
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** The "Kiwipete" perft position, full of pins, checks and promotions a few plies down. */
+    public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    /** An open middlegame where both queens and all four rooks are active. */
+    public static final String MIDDLEGAME = "r3r1k1/pp2qppp/2p2n2/3p4/2PP2b1/2N1QN2/PP3PPP/2R2RK1 w - - 0 1";
+
+    /** A rook and pawn endgame with few pieces but deep tactics. */
+    public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    /** Black to move and checkmated: the back-rank rook mate. */
+    public static final String CHECKMATE = "3R2k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1";
+
+    /** Black to move and stalemated by a queen and king. */
+    public static final String STALEMATE = "k7/2Q5/1K6/8/8/8/8/8 b - - 0 1";
+
+    /** The playable positions, for benchmarks that run a whole suite per operation. */
+    public static final List<String> SUITE = List.of("start", "kiwipete", "middlegame", "endgame");
+
+    private Positions() {
+    }
+
+    /** @return a game holding the named position */
+    public static ChessGame load(String name) {
+        String fen = switch (name) {
+            case "start" -> START;
+            case "kiwipete" -> KIWIPETE;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            case "checkmate" -> CHECKMATE;
+            case "stalemate" -> STALEMATE;
+            default -> throw new IllegalArgumentException("Unknown position: " + name);
+        };
+        return ChessGame.fromFen(fen);
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.Engine;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine search throughput from the benchmark positions. The {@code nodes}
+ * counter is reported as nodes per second, the figure to size bot capacity by.
+ * Each operation is one fixed-depth search from an empty transposition table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"start", "kiwipete", "middlegame"})
+    public String position;
+
+    @Param({"6"})
+    public int depth;
+
+    private ChessGame game;
+    private Engine engine;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(position);
+        engine = new Engine();
+    }
+
+    @Benchmark
+    public SearchResult search(Nodes counter) {
+        engine.newGame();
+        SearchResult result = engine.search(game, SearchLimits.depth(depth));
+        counter.nodes += result.nodes();
+        return result;
+    }
+}
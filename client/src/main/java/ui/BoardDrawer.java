@@ -104,7 +104,7 @@ public class BoardDrawer {
             out.print(SET_BG_COLOR_LIGHT_BROWN);
         }
 
-        ChessPosition position = new ChessPosition(row, col);
+        ChessPosition position = ChessPosition.of(row, col);
         ChessPiece piece = board.getPiece(position);
 
         if (piece != null) {
@@ -281,7 +281,7 @@ public class GameplayUI implements NotificationHandler {
             throw new IllegalArgumentException("Position out of bounds must be a-h and 1-8");
         }
 
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     private ChessPiece.PieceType promptForPromotion() {
@@ -0,0 +1,126 @@
+package dataaccess;
+
+import chess.ChessGame;
+import com.google.gson.*;
+
+import java.lang.reflect.Type;
+
+/**
+ * Reads the games column in either of its layouts. Games are written as
+ * {@link ChessGame} serializes today, with the board as bitboards. Rows
+ * written before that hold the board as an 8x8 array of pieces, row 1 first,
+ * and the side to move as {@code currentTurn}; those are rebuilt from the
+ * pieces. Anything else is rejected rather than read as an empty board.
+ */
+public class ChessGameDeserializer implements JsonDeserializer<ChessGame> {
+    private static final String PIECE_LETTERS = "KQBNRP";
+    private static final Gson PLAIN = new Gson();
+
+    /** @return a Gson that reads stored games of either layout */
+    public static Gson gson() {
+        return new GsonBuilder().registerTypeAdapter(ChessGame.class, new ChessGameDeserializer()).create();
+    }
+
+    @Override
+    public ChessGame deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+        JsonObject object = json.getAsJsonObject();
+        JsonObject board = object.getAsJsonObject("board");
+        if (board == null) {
+            throw new JsonParseException("Stored game has no board");
+        }
+        if (board.has("bitboards") && board.has("sideToMove")) {
+            return PLAIN.fromJson(json, ChessGame.class);
+        }
+        if (board.has("board") && object.has("currentTurn")) {
+            return fromLegacy(board.getAsJsonArray("board"), object);
+        }
+        throw new JsonParseException("Stored game is in an unknown layout");
+    }
+
+    /** Rebuilds a game stored as an array of pieces, by way of its FEN. */
+    private static ChessGame fromLegacy(JsonArray rows, JsonObject object) {
+        if (rows.size() != 8) {
+            throw new JsonParseException("Stored board does not have eight rows");
+        }
+        char[][] letters = new char[8][8];
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            JsonArray squares = rows.get(row).getAsJsonArray();
+            if (squares.size() != 8) {
+                throw new JsonParseException("Stored row " + (row + 1) + " does not have eight squares");
+            }
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                JsonElement square = squares.get(col);
+                if (square.isJsonNull()) {
+                    empty++;
+                    continue;
+                }
+                letters[row][col] = letter(square.getAsJsonObject());
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(letters[row][col]);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            fen.append(row > 0 ? "/" : "");
+        }
+        fen.append(' ').append(turn(object.get("currentTurn")) == ChessGame.TeamColor.WHITE ? 'w' : 'b');
+        fen.append(' ').append(castling(letters)).append(" - 0 1");
+
+        ChessGame game;
+        try {
+            game = ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Stored board is not a legal position: " + e.getMessage(), e);
+        }
+        JsonElement gameOver = object.get("gameOver");
+        game.setGameOver(gameOver != null && gameOver.getAsBoolean());
+        return game;
+    }
+
+    private static char letter(JsonObject piece) {
+        ChessGame.TeamColor color = PLAIN.fromJson(piece.get("pieceColor"), ChessGame.TeamColor.class);
+        JsonElement type = piece.get("type");
+        int index = type == null ? -1 : switch (type.getAsString()) {
+            case "KING" -> 0;
+            case "QUEEN" -> 1;
+            case "BISHOP" -> 2;
+            case "KNIGHT" -> 3;
+            case "ROOK" -> 4;
+            case "PAWN" -> 5;
+            default -> -1;
+        };
+        if (color == null || index < 0) {
+            throw new JsonParseException("Stored piece is not valid: " + piece);
+        }
+        char letter = PIECE_LETTERS.charAt(index);
+        return color == ChessGame.TeamColor.WHITE ? letter : Character.toLowerCase(letter);
+    }
+
+    private static ChessGame.TeamColor turn(JsonElement currentTurn) {
+        ChessGame.TeamColor color = PLAIN.fromJson(currentTurn, ChessGame.TeamColor.class);
+        if (color == null) {
+            throw new JsonParseException("Stored game has no side to move");
+        }
+        return color;
+    }
+
+    /**
+     * The old layout kept no castling rights, so each side keeps those whose
+     * king and rook still stand on their home squares.
+     */
+    private static String castling(char[][] letters) {
+        StringBuilder rights = new StringBuilder();
+        if (letters[0][4] == 'K') {
+            rights.append(letters[0][7] == 'R' ? "K" : "").append(letters[0][0] == 'R' ? "Q" : "");
+        }
+        if (letters[7][4] == 'k') {
+            rights.append(letters[7][7] == 'r' ? "k" : "").append(letters[7][0] == 'r' ? "q" : "");
+        }
+        return rights.isEmpty() ? "-" : rights.toString();
+    }
+}
@@ -2,12 +2,14 @@ package dataaccess;
 
 import chess.ChessGame;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import model.GameData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 
 public class SQLGameDAO implements GameDAO {
+    private static final Gson GAME_GSON = ChessGameDeserializer.gson();
 
     public SQLGameDAO() throws DataAccessException {
         configureDatabase();
@@ -78,7 +80,7 @@ public class SQLGameDAO implements GameDAO {
                         String gameName = rs.getString("gameName");
                         String gameJson = rs.getString("game");
 
-                        ChessGame chessGame = new Gson().fromJson(gameJson, ChessGame.class);
+                        ChessGame chessGame = readGame(id, gameJson);
                         return new GameData(id, whiteUsername, blackUsername, gameName, chessGame);
                     }
                 }
@@ -103,7 +105,7 @@ public class SQLGameDAO implements GameDAO {
                         String gameName = rs.getString("gameName");
                         String gameJson = rs.getString("game");
 
-                        ChessGame chessGame = new Gson().fromJson(gameJson, ChessGame.class);
+                        ChessGame chessGame = readGame(id, gameJson);
                         result.add(new GameData(id, whiteUsername, blackUsername, gameName, chessGame));
                     }
                 }
@@ -114,6 +116,14 @@ public class SQLGameDAO implements GameDAO {
         return result;
     }
 
+    private static ChessGame readGame(int gameID, String gameJson) throws DataAccessException {
+        try {
+            return GAME_GSON.fromJson(gameJson, ChessGame.class);
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new DataAccessException("Error reading game " + gameID + ": " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public void updateGame(GameData game) throws DataAccessException {
         if (game == null) {
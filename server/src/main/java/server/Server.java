@@ -1,15 +1,21 @@
 package server;
 
+import chess.engine.Tablebases;
 import com.google.gson.Gson;
 import io.javalin.*;
 import io.javalin.http.*;
 import dataaccess.*;
 import service.*;
 import server.websocket.WebSocketHandler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.time.Duration;
 
 public class Server {
+    /** Where the server looks for endgame tablebases, relative to its working directory. */
+    public static final Path TABLEBASE_PATH = Path.of("tablebases");
 
     private final Javalin javalin;
     private final UserDAO userDAO;
@@ -18,6 +24,8 @@ public class Server {
 
     private final UserService userService;
     private final GameService gameService;
+    private final AnalysisService analysisService;
+    private final BotService botService;
     private final WebSocketHandler webSocketHandler;
 
     private final Gson gson = new Gson();
@@ -30,7 +38,10 @@ public class Server {
 
             this.userService = new UserService(userDAO, authDAO);
             this.gameService = new GameService(gameDAO, authDAO);
-            this.webSocketHandler = new WebSocketHandler(authDAO, gameDAO);
+            Tablebases tablebases = loadTablebases(TABLEBASE_PATH);
+            this.analysisService = new AnalysisService(gameDAO, authDAO, tablebases);
+            this.botService = new BotService(OpeningBookCompiler.load(OpeningBookCompiler.DEFAULT_PATH), tablebases);
+            this.webSocketHandler = new WebSocketHandler(authDAO, gameDAO, analysisService, botService);
         } catch (DataAccessException e) {
             throw new RuntimeException("Failed to initialize database: " + e.getMessage(), e);
         }
@@ -62,6 +73,7 @@ public class Server {
         javalin.get("/game", this::listGames);
         javalin.post("/game", this::createGame);
         javalin.put("/game", this::joinGame);
+        javalin.post("/analysis", this::analyze);
         javalin.delete("/db", this::clear);
 
         javalin.exception(DataAccessException.class, this::handleException);
@@ -74,6 +86,21 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        analysisService.close();
+        botService.close();
+    }
+
+    /** @return the tablebases in the directory, or null if there are none or they cannot be read */
+    private static Tablebases loadTablebases(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try {
+            return Tablebases.open(directory);
+        } catch (IOException e) {
+            System.err.println("Tablebases not loaded: " + e.getMessage());
+            return null;
+        }
     }
 
     private void register(Context ctx) throws DataAccessException {
@@ -120,6 +147,17 @@ public class Server {
         ctx.json("{}");
     }
 
+    private void analyze(Context ctx) throws DataAccessException {
+        String authToken = ctx.header("authorization");
+        var request = gson.fromJson(ctx.body(), AnalysisService.AnalysisRequest.class);
+        var result = analysisService.analyze(authToken, request);
+        // The search runs on the analysis pool; the request thread is free until it finishes
+        ctx.future(() -> result.thenAccept(analysis -> {
+            ctx.status(200);
+            ctx.json(gson.toJson(analysis));
+        }));
+    }
+
     private void clear(Context ctx) throws DataAccessException {
         userService.clear();
         gameService.clear();
@@ -137,6 +175,8 @@ public class Server {
             status = 401;
         } else if (message.contains("already taken")) {
             status = 403;
+        } else if (message.contains("busy")) {
+            status = 503;
         }
 
         ctx.status(status);
@@ -4,16 +4,21 @@ import com.google.gson.Gson;
 import io.javalin.websocket.WsContext;
 import websocket.messages.ServerMessage;
 
-import java.util.ArrayList;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Tracks the WebSocket sessions watching each game. Engine threads broadcast
+ * bot moves alongside the request threads, so the lists are safe to walk while
+ * they change and each session sends one message at a time.
+ */
 public class ConnectionManager {
 
-    private final ConcurrentHashMap<Integer, ArrayList<Connection>> connections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, CopyOnWriteArrayList<Connection>> connections = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
 
     public void add(Integer gameID, String authToken, WsContext session) {
-        var list = connections.computeIfAbsent(gameID, k -> new ArrayList<>());
+        var list = connections.computeIfAbsent(gameID, k -> new CopyOnWriteArrayList<>());
 
         list.removeIf(conn -> conn.authToken.equals(authToken));
 
@@ -47,7 +52,10 @@ public class ConnectionManager {
     }
 
     public void sendToSession(WsContext session, ServerMessage message) {
-        session.send(gson.toJson(message));
+        String json = gson.toJson(message);
+        synchronized (session.session) {
+            session.send(json);
+        }
     }
 
     private static class Connection {
@@ -61,7 +69,9 @@ public class ConnectionManager {
 
         public void send(String msg) {
             try {
-                session.send(msg);
+                synchronized (session.session) {
+                    session.send(msg);
+                }
             } catch (Exception e) {
                 System.out.println("Failed to send to closed connection: " + e.getMessage());
             }
@@ -2,6 +2,7 @@ package server.websocket;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.ChessPiece;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
 import dataaccess.*;
@@ -9,18 +10,41 @@ import io.javalin.websocket.WsConnectContext;
 import io.javalin.websocket.WsMessageContext;
 import model.AuthData;
 import model.GameData;
+import service.AnalysisService;
+import service.BotService;
 import websocket.commands.*;
 import websocket.messages.*;
 
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
 public class WebSocketHandler {
     private final ConnectionManager connections = new ConnectionManager();
     private final Gson gson = new Gson();
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
-
-    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO) {
+    private final AnalysisService analysisService;
+    private final BotService botService;
+    /*
+     * One lock per game, held across every read, check and write of the game's
+     * row. Moves, resignations, departures and bot moves each rewrite the whole
+     * row, so without it a bot move finishing on an engine thread could undo a
+     * resignation or put back a player who just left. Games share a fixed set
+     * of locks by ID so that finished games leave nothing behind; two games on
+     * the same lock only wait on each other for a database round trip.
+     */
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] gameLocks = new Object[LOCK_STRIPES];
+
+    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO, AnalysisService analysisService,
+                            BotService botService) {
         this.authDAO = authDAO;
         this.gameDAO = gameDAO;
+        this.analysisService = analysisService;
+        this.botService = botService;
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new Object();
+        }
     }
 
     public void onConnect(WsConnectContext ctx) {
@@ -40,9 +64,22 @@ public class WebSocketHandler {
 
             switch (command.getCommandType()) {
                 case CONNECT -> handleConnect(ctx, command, message);
-                case MAKE_MOVE -> handleMakeMove(ctx, command, message);
-                case LEAVE -> handleLeave(ctx, command);
-                case RESIGN -> handleResign(ctx, command);
+                case MAKE_MOVE -> {
+                    synchronized (gameLock(command.getGameID())) {
+                        handleMakeMove(ctx, command, message);
+                    }
+                }
+                case LEAVE -> {
+                    synchronized (gameLock(command.getGameID())) {
+                        handleLeave(ctx, command);
+                    }
+                }
+                case RESIGN -> {
+                    synchronized (gameLock(command.getGameID())) {
+                        handleResign(ctx, command);
+                    }
+                }
+                case ANALYZE -> handleAnalyze(ctx, message);
             }
         } catch (Exception e) {
             System.err.println("Error processing message: " + e.getMessage());
@@ -93,6 +130,9 @@ public class WebSocketHandler {
             NotificationMessage notifyMsg = new NotificationMessage(notificationMsg);
             connections.broadcast(command.getGameID(), notifyMsg, ctx);
 
+            // A bot holding white makes its first move once someone is watching
+            playBotMoveIfDue(command.getGameID(), null);
+
         } catch (Exception e) {
             sendError(ctx, "Error: " + e.getMessage());
         }
@@ -117,6 +157,10 @@ public class WebSocketHandler {
             String username = auth.username();
 
             // If they're a player, remove them from the game in database
+            // and stop any bot from pondering a reply they will not make
+            if (username.equals(game.whiteUsername()) || username.equals(game.blackUsername())) {
+                botService.stopPondering(command.getGameID());
+            }
             if (username.equals(game.whiteUsername())) {
                 GameData updatedGame = new GameData(game.gameID(), null, game.blackUsername(),
                         game.gameName(), game.game());
@@ -187,7 +231,7 @@ public class WebSocketHandler {
                 sendError(ctx, "Error: No move provided");
                 return;
             }
-            chess.ChessPiece capturedPiece = game.getBoard().getPiece(move.getEndPosition());
+            ChessPiece capturedPiece = game.getBoard().getPiece(move.getEndPosition());
 
             try {
                 game.makeMove(move);
@@ -203,38 +247,131 @@ public class WebSocketHandler {
             LoadGameMessage loadMsg = new LoadGameMessage(game);
             connections.broadcast(command.getGameID(), loadMsg, null);
 
-
-            String moveNotification;
-            if (capturedPiece != null) {
-                moveNotification = username + " captured " + capturedPiece.getTeamColor() +
-                        "'s " + capturedPiece.getPieceType() + "!";
-            } else {
-                moveNotification = username + " moved from " + move.getStartPosition() +
-                        " to " + move.getEndPosition();
-            }
-            NotificationMessage moveMsg = new NotificationMessage(moveNotification);
+            NotificationMessage moveMsg = new NotificationMessage(moveNotification(username, move, capturedPiece));
             connections.broadcast(command.getGameID(), moveMsg, ctx);
 
-// Check for check, checkmate, or stalemate
-            ChessGame.TeamColor opponentColor = (currentTurn == ChessGame.TeamColor.WHITE) ?
-                    ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            announceStatus(command.getGameID(), game, username);
+            playBotMoveIfDue(command.getGameID(), move);
+
+        } catch (Exception e) {
+            sendError(ctx, "Error: " + e.getMessage());
+        }
+    }
+
+    private static String moveNotification(String username, ChessMove move, ChessPiece capturedPiece) {
+        if (capturedPiece != null) {
+            return username + " captured " + capturedPiece.getTeamColor() +
+                    "'s " + capturedPiece.getPieceType() + "!";
+        }
+        return username + " moved from " + move.getStartPosition() + " to " + move.getEndPosition();
+    }
+
+    /**
+     * Tells everyone in the game about check, checkmate, stalemate, or a draw
+     * after {@code username} has moved.
+     */
+    private void announceStatus(Integer gameID, ChessGame game, String username) {
+        ChessGame.TeamColor opponentColor = game.getTeamTurn();
 
-            if (game.isInCheckmate(opponentColor)) {
+        switch (game.status(opponentColor)) {
+            case CHECKMATE -> {
                 String checkmateMsg = opponentColor + " is in checkmate! " + username + " wins!";
                 NotificationMessage checkmate = new NotificationMessage(checkmateMsg);
-                connections.broadcast(command.getGameID(), checkmate, null);
-            } else if (game.isInStalemate(opponentColor)) {
+                connections.broadcast(gameID, checkmate, null);
+            }
+            case STALEMATE -> {
                 String stalemateMsg = opponentColor + " is in stalemate. The game is a draw.";
                 NotificationMessage stalemate = new NotificationMessage(stalemateMsg);
-                connections.broadcast(command.getGameID(), stalemate, null);
-            } else if (game.isInCheck(opponentColor)) {
+                connections.broadcast(gameID, stalemate, null);
+            }
+            case THREEFOLD_REPETITION -> {
+                String repetitionMsg = "The position has been repeated three times. The game is a draw.";
+                NotificationMessage repetition = new NotificationMessage(repetitionMsg);
+                connections.broadcast(gameID, repetition, null);
+            }
+            case FIFTY_MOVE_RULE -> {
+                String fiftyMoveMsg = "Fifty moves have passed without a capture or pawn move. The game is a draw.";
+                NotificationMessage fiftyMove = new NotificationMessage(fiftyMoveMsg);
+                connections.broadcast(gameID, fiftyMove, null);
+            }
+            case CHECK -> {
                 String checkMsg = opponentColor + " is in check!";
                 NotificationMessage check = new NotificationMessage(checkMsg);
-                connections.broadcast(command.getGameID(), check, null);
+                connections.broadcast(gameID, check, null);
+            }
+            case NORMAL -> {
             }
+        }
+    }
+
+    /**
+     * Starts the bot's search if a bot holds the seat to move. The move is
+     * played on an engine thread when the search finishes.
+     *
+     * @param lastMove the move just played, which may be the reply the bot pondered
+     */
+    private void playBotMoveIfDue(Integer gameID, ChessMove lastMove) throws DataAccessException {
+        GameData gameData = gameDAO.getGame(gameID);
+        if (gameData == null) {
+            return;
+        }
+        ChessGame game = gameData.game();
+        String bot = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? gameData.whiteUsername() : gameData.blackUsername();
+        if (game.isGameOver() || !BotService.isBot(bot)) {
+            return;
+        }
+        int ply = game.getPlyCount();
+        try {
+            botService.chooseMove(gameID, game, lastMove, bot)
+                    .thenAccept(botMove -> playBotMove(gameID, ply, botMove))
+                    .exceptionally(e -> {
+                        System.err.println("Bot move failed in game " + gameID + ": " + e.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            connections.broadcast(gameID, new ErrorMessage("Error: " + bot + " is too busy to move"), null);
+        }
+    }
+
+    private void playBotMove(Integer gameID, int ply, BotService.BotMove botMove) {
+        try {
+            synchronized (gameLock(gameID)) {
+                GameData gameData = gameDAO.getGame(gameID);
+                ChessMove move = botMove.move();
+                if (gameData == null || move == null) {
+                    return;
+                }
+                ChessGame game = gameData.game();
+                String bot = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                        ? gameData.whiteUsername() : gameData.blackUsername();
+                // A resignation or a freed seat while the bot was thinking makes its move stale
+                if (game.isGameOver() || game.getPlyCount() != ply || !BotService.isBot(bot)) {
+                    return;
+                }
+                ChessPiece capturedPiece = game.getBoard().getPiece(move.getEndPosition());
+                game.makeMove(move);
 
+                GameData updatedGameData = new GameData(gameData.gameID(), gameData.whiteUsername(),
+                        gameData.blackUsername(), gameData.gameName(), game);
+                gameDAO.updateGame(updatedGameData);
+
+                connections.broadcast(gameID, new LoadGameMessage(game), null);
+                connections.broadcast(gameID,
+                        new NotificationMessage(moveNotification(bot, move, capturedPiece)), null);
+                announceStatus(gameID, game, bot);
+
+                String opponent = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                        ? gameData.whiteUsername() : gameData.blackUsername();
+                if (BotService.isBot(opponent)) {
+                    // Two bots play each other out
+                    playBotMoveIfDue(gameID, move);
+                } else {
+                    botService.startPondering(gameID, game, botMove.expectedReply(), bot);
+                }
+            }
         } catch (Exception e) {
-            sendError(ctx, "Error: " + e.getMessage());
+            System.err.println("Bot move failed in game " + gameID + ": " + e.getMessage());
         }
     }
 
@@ -274,6 +411,7 @@ public class WebSocketHandler {
 
             // Mark game as over
             game.setGameOver(true);
+            botService.stopPondering(command.getGameID());
             GameData updatedGameData = new GameData(gameData.gameID(), gameData.whiteUsername(),
                     gameData.blackUsername(), gameData.gameName(), game);
             gameDAO.updateGame(updatedGameData);
@@ -288,6 +426,30 @@ public class WebSocketHandler {
         }
     }
 
+    private void handleAnalyze(WsMessageContext ctx, String message) {
+        try {
+            AnalyzeCommand analyzeCommand = gson.fromJson(message, AnalyzeCommand.class);
+            var request = new AnalysisService.AnalysisRequest(analyzeCommand.getGameID(),
+                    analyzeCommand.getFen(), analyzeCommand.getMillis());
+
+            // Reply from the analysis pool once the search is done, only to the asking client
+            analysisService.analyze(analyzeCommand.getAuthToken(), request)
+                    .thenAccept(analysis -> connections.sendToSession(ctx, new AnalysisMessage(analysis)))
+                    .exceptionally(e -> {
+                        sendError(ctx, "Error: analysis failed");
+                        return null;
+                    });
+        } catch (DataAccessException e) {
+            sendError(ctx, e.getMessage());
+        } catch (Exception e) {
+            sendError(ctx, "Error: " + e.getMessage());
+        }
+    }
+
+    private Object gameLock(Integer gameID) {
+        return gameLocks[Math.floorMod(Objects.hashCode(gameID), LOCK_STRIPES)];
+    }
+
     private void sendError(WsMessageContext ctx, String errorMessage) {
         try {
             ErrorMessage error = new ErrorMessage(errorMessage);
@@ -0,0 +1,125 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebases;
+import dataaccess.*;
+import model.AnalysisData;
+import model.AuthData;
+import model.GameData;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs engine searches for hints and game review on a pool of its own, so
+ * they never tie up the threads serving HTTP and WebSocket requests. When too
+ * many searches are waiting, new requests are turned away. Endgames the
+ * tablebases cover are answered straight from them, without queueing.
+ */
+public class AnalysisService implements AutoCloseable {
+    public static final int DEFAULT_MILLIS = 1000;
+    public static final int MAX_MILLIS = 10_000;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final GameDAO gameDAO;
+    private final AuthDAO authDAO;
+    private final EnginePool engines;
+    private final Tablebases tablebases;
+
+    /**
+     * @param fen    position to analyze, or null to analyze the game's current position
+     * @param millis search time budget, or null for {@link #DEFAULT_MILLIS}
+     */
+    public record AnalysisRequest(Integer gameID, String fen, Integer millis) {
+    }
+
+    public AnalysisService(GameDAO gameDAO, AuthDAO authDAO) {
+        this(gameDAO, authDAO, null);
+    }
+
+    /** @param tablebases endgame tables to answer from, or null for none */
+    public AnalysisService(GameDAO gameDAO, AuthDAO authDAO, Tablebases tablebases) {
+        this(gameDAO, authDAO, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), tablebases);
+    }
+
+    public AnalysisService(GameDAO gameDAO, AuthDAO authDAO, int threads) {
+        this(gameDAO, authDAO, threads, null);
+    }
+
+    public AnalysisService(GameDAO gameDAO, AuthDAO authDAO, int threads, Tablebases tablebases) {
+        this.gameDAO = gameDAO;
+        this.authDAO = authDAO;
+        this.tablebases = tablebases;
+        this.engines = new EnginePool("analysis-worker", threads, QUEUE_CAPACITY, tablebases);
+    }
+
+    /**
+     * Checks the request and queues a search of the position.
+     *
+     * @return the analysis, completed on a worker thread once the time budget is spent
+     * @throws DataAccessException if the request is not authorized or names no
+     *                             valid position, or if too many searches are waiting
+     */
+    public CompletableFuture<AnalysisData> analyze(String authToken, AnalysisRequest req) throws DataAccessException {
+        validateAuth(authToken);
+        if (req == null || req.millis() != null && req.millis() <= 0) {
+            throw new DataAccessException("Error: bad request");
+        }
+        ChessGame game = position(req);
+        SearchResult solved = tablebases == null ? null : tablebases.solve(game.getBoard());
+        if (solved != null) {
+            return CompletableFuture.completedFuture(toAnalysis(game, solved));
+        }
+        SearchLimits limits = SearchLimits.millis(req.millis() == null ? DEFAULT_MILLIS
+                : Math.min(req.millis(), MAX_MILLIS));
+        try {
+            Integer gameID = req.fen() != null ? null : req.gameID();
+            return engines.search(gameID, game, limits).thenApply(result -> toAnalysis(game, result));
+        } catch (RejectedExecutionException e) {
+            throw new DataAccessException("Error: analysis is busy, try again later");
+        }
+    }
+
+    @Override
+    public void close() {
+        engines.close();
+    }
+
+    private ChessGame position(AnalysisRequest req) throws DataAccessException {
+        if (req.fen() != null) {
+            try {
+                return ChessGame.fromFen(req.fen());
+            } catch (IllegalArgumentException e) {
+                throw new DataAccessException("Error: bad request");
+            }
+        }
+        if (req.gameID() == null) {
+            throw new DataAccessException("Error: bad request");
+        }
+        GameData game = gameDAO.getGame(req.gameID());
+        if (game == null) {
+            throw new DataAccessException("Error: bad request");
+        }
+        return game.game();
+    }
+
+    private static AnalysisData toAnalysis(ChessGame game, SearchResult result) {
+        int sign = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 1 : -1;
+        return new AnalysisData(result.bestChessMove(), sign * result.score(),
+                result.isMate() ? sign * result.mateIn() : null, result.depth(), result.nodes(),
+                result.principalVariationMoves());
+    }
+
+    private AuthData validateAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("Error: unauthorized");
+        }
+        AuthData auth = authDAO.getAuth(authToken);
+        if (auth == null) {
+            throw new DataAccessException("Error: unauthorized");
+        }
+        return auth;
+    }
+}
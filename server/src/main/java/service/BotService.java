@@ -0,0 +1,196 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.engine.OpeningBook;
+import chess.engine.SearchControl;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebases;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computer opponents. A bot takes a seat in a game under a reserved username
+ * that records its level, and its moves are searched on a pool of engine
+ * threads of its own.
+ * <p>
+ * After moving, a bot ponders: it searches the position after the reply it
+ * expects while its opponent thinks. If the opponent plays that reply, the
+ * search carries on with the pondered time counted against its budget, so the
+ * bot answers sooner; any other reply throws the pondering away. Pondering
+ * runs on a second pool with no queue, so it only starts when one of those
+ * threads is free, and it never holds up a real move in any game.
+ * <p>
+ * While the game is still in the opening book, a bot plays a book move at
+ * once instead of searching, provided the move was played in a few games, and in the endgames the tablebases cover it
+ * plays perfectly, also at once.
+ */
+public class BotService implements AutoCloseable {
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 5;
+    private static final String USERNAME_PREFIX = "Bot level ";
+    private static final int QUEUE_CAPACITY = 64;
+    /** Games a book move must have been played in before a bot trusts it. */
+    static final int MIN_BOOK_GAMES = 3;
+    /** Longest a bot ponders, so an idle opponent cannot hold an engine thread forever. */
+    private static final long MAX_PONDER_MILLIS = 30_000;
+    /** Search limits by level, from a one-ply blunderer to a few seconds of full search. */
+    private static final SearchLimits[] LEVELS = {
+            new SearchLimits(1, 0, 50),
+            new SearchLimits(2, 0, 100),
+            new SearchLimits(4, 0, 300),
+            new SearchLimits(8, 0, 1000),
+            new SearchLimits(0, 0, 3000),
+    };
+
+    private final EnginePool engines;
+    private final EnginePool ponderEngines;
+    private final OpeningBook book;
+    private final Map<Integer, Ponder> ponders = new ConcurrentHashMap<>();
+    private final AtomicLong ponderHits = new AtomicLong();
+
+    /**
+     * A bot's move and the reply it expects, or null for either if there is none.
+     */
+    public record BotMove(ChessMove move, ChessMove expectedReply) {
+    }
+
+    /**
+     * A search of the position after the expected reply.
+     *
+     * @param ply the game's ply count once the expected reply is played
+     */
+    private record Ponder(ChessMove expectedReply, int ply, SearchControl control,
+                          CompletableFuture<BotMove> result) {
+    }
+
+    /**
+     * @param book       the opening book to play from, or null to always search
+     * @param tablebases endgame tables to play from, or null for none
+     */
+    public BotService(OpeningBook book, Tablebases tablebases) {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), book, tablebases);
+    }
+
+    public BotService(int threads) {
+        this(threads, null, null);
+    }
+
+    public BotService(int threads, OpeningBook book, Tablebases tablebases) {
+        this.engines = new EnginePool("bot-worker", threads, QUEUE_CAPACITY, tablebases);
+        this.ponderEngines = new EnginePool("bot-ponder", threads, 0, tablebases);
+        this.book = book;
+    }
+
+    /** @return the username a bot of the given level plays under */
+    public static String username(int level) {
+        return USERNAME_PREFIX + level;
+    }
+
+    /** @return true if the username belongs to a bot rather than a registered user */
+    public static boolean isBot(String username) {
+        return username != null && username.startsWith(USERNAME_PREFIX);
+    }
+
+    /**
+     * Picks a move for the side to move: a book move if the position is in the
+     * opening book, or else by search, reusing the pondering of the game if it
+     * searched this position. The game must not be changed until the
+     * returned future completes.
+     *
+     * @param gameID      the game, to match against its pondering
+     * @param lastMove    the move that led to the position, or null
+     * @param botUsername the username of the bot in the seat to move
+     * @throws RejectedExecutionException if too many bot moves are waiting
+     */
+    public CompletableFuture<BotMove> chooseMove(Integer gameID, ChessGame game, ChessMove lastMove,
+                                                 String botUsername) {
+        int bookMove = book == null ? Move.NONE : book.pick(game.getBoard(), ThreadLocalRandom.current(),
+                MIN_BOOK_GAMES);
+        if (bookMove != Move.NONE) {
+            stopPondering(gameID);
+            return CompletableFuture.completedFuture(new BotMove(Move.toChessMove(bookMove), null));
+        }
+        Ponder ponder = ponders.remove(gameID);
+        if (ponder != null) {
+            if (ponder.expectedReply().equals(lastMove) && ponder.ply() == game.getPlyCount()) {
+                ponder.control().ponderHit();
+                ponderHits.incrementAndGet();
+                return ponder.result();
+            }
+            ponder.control().stop();
+        }
+        return engines.search(gameID, game, limits(botUsername)).thenApply(BotService::toBotMove);
+    }
+
+    /**
+     * Starts pondering the position after the expected reply. Pondering is
+     * skipped when there is no expected reply or every pondering thread is busy.
+     *
+     * @param game the game after the bot's move; it is copied, not changed
+     */
+    public void startPondering(Integer gameID, ChessGame game, ChessMove expectedReply, String botUsername) {
+        stopPondering(gameID);
+        if (expectedReply == null) {
+            return;
+        }
+        ChessGame afterReply = new ChessGame(game);
+        try {
+            afterReply.makeMove(expectedReply);
+        } catch (InvalidMoveException e) {
+            return;
+        }
+        SearchControl control = SearchControl.pondering();
+        try {
+            CompletableFuture<BotMove> result = ponderEngines
+                    .search(gameID, afterReply, limits(botUsername), control)
+                    .thenApply(BotService::toBotMove);
+            ponders.put(gameID, new Ponder(expectedReply, game.getPlyCount() + 1, control, result));
+            CompletableFuture.delayedExecutor(MAX_PONDER_MILLIS, TimeUnit.MILLISECONDS).execute(control::stop);
+        } catch (RejectedExecutionException e) {
+            // Other games are pondering on every thread; this one plays without
+        }
+    }
+
+    /** @return how many bot moves have come from pondering on the reply that was played */
+    public long getPonderHits() {
+        return ponderHits.get();
+    }
+
+    /** Abandons any pondering for the game, as when it ends or a player leaves. */
+    public void stopPondering(Integer gameID) {
+        Ponder ponder = ponders.remove(gameID);
+        if (ponder != null) {
+            ponder.control().stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Ponder ponder : ponders.values()) {
+            ponder.control().stop();
+        }
+        engines.close();
+        ponderEngines.close();
+    }
+
+    private static BotMove toBotMove(SearchResult result) {
+        List<ChessMove> line = result.principalVariationMoves();
+        return new BotMove(result.bestChessMove(), line.size() > 1 ? line.get(1) : null);
+    }
+
+    private static SearchLimits limits(String botUsername) {
+        int level = Integer.parseInt(botUsername.substring(USERNAME_PREFIX.length()));
+        return LEVELS[Math.max(MIN_LEVEL, Math.min(level, MAX_LEVEL)) - 1];
+    }
+}
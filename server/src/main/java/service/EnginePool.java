@@ -0,0 +1,101 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.Engine;
+import chess.engine.SearchControl;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebases;
+
+import java.util.concurrent.*;
+
+/**
+ * A fixed pool of worker threads, each with its own engine, that runs
+ * searches away from the threads serving HTTP and WebSocket requests. A
+ * bounded queue absorbs bursts; beyond it searches are turned away rather than
+ * left to wait.
+ * <p>
+ * Searches of one game may land on any engine, and an engine serves many
+ * games in turn. Each engine remembers the game it last searched and starts
+ * over with {@link Engine#newGame()} when handed a different one, so the move
+ * ordering it learned in one game is not carried into another.
+ */
+class EnginePool implements AutoCloseable {
+    private final ExecutorService workers;
+    private final BlockingQueue<PooledEngine> engines;
+
+    /** An engine and the game it last searched, or null after a position from no game. */
+    private static final class PooledEngine {
+        final Engine engine;
+        Integer gameID;
+
+        PooledEngine(Engine engine) {
+            this.engine = engine;
+        }
+    }
+
+    /**
+     * @param queueCapacity searches that may wait for a free thread; with 0 a
+     *                      search is turned away unless a thread is free
+     * @param tablebases    endgame tables for the engines, or null for none
+     */
+    EnginePool(String name, int threads, int queueCapacity, Tablebases tablebases) {
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(queueCapacity);
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // One engine per worker thread, so a worker always finds one free
+        engines = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Engine engine = new Engine();
+            engine.setTablebases(tablebases);
+            engines.add(new PooledEngine(engine));
+        }
+    }
+
+    /**
+     * Queues a search of the game's current position. The game must not be
+     * changed until the search completes.
+     *
+     * @param gameID the stored game the position belongs to, or null for a
+     *               position from no game
+     * @throws RejectedExecutionException if the queue is full
+     */
+    CompletableFuture<SearchResult> search(Integer gameID, ChessGame game, SearchLimits limits) {
+        return search(gameID, game, limits, new SearchControl());
+    }
+
+    /**
+     * Queues a search of the game's current position under the given control.
+     *
+     * @param gameID the stored game the position belongs to, or null for a
+     *               position from no game
+     * @throws RejectedExecutionException if the queue is full
+     */
+    CompletableFuture<SearchResult> search(Integer gameID, ChessGame game, SearchLimits limits,
+                                           SearchControl control) {
+        return CompletableFuture.supplyAsync(() -> {
+            PooledEngine pooled = engines.poll();
+            try {
+                if (gameID == null || !gameID.equals(pooled.gameID)) {
+                    pooled.engine.newGame();
+                    pooled.gameID = gameID;
+                }
+                return pooled.engine.search(game, limits, control);
+            } finally {
+                engines.add(pooled);
+            }
+        }, workers);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        for (PooledEngine pooled : engines) {
+            pooled.engine.close();
+        }
+    }
+}
@@ -23,7 +23,14 @@ public class GameService {
     public record CreateGameRequest(String gameName) {
     }
 
-    public record JoinGameRequest(String playerColor, Integer gameID) {
+    /**
+     * @param botLevel if set, the seat goes to a computer opponent of this
+     *                 level instead of the requesting user
+     */
+    public record JoinGameRequest(String playerColor, Integer gameID, Integer botLevel) {
+        public JoinGameRequest(String playerColor, Integer gameID) {
+            this(playerColor, gameID, null);
+        }
     }
 
     public record ListGamesResult(Collection<GameData> games) {
@@ -58,6 +65,11 @@ public class GameService {
         if (req.gameID() == null || req.playerColor() == null) {
             throw new DataAccessException("Error: bad request");
         }
+        if (req.botLevel() != null
+                && (req.botLevel() < BotService.MIN_LEVEL || req.botLevel() > BotService.MAX_LEVEL)) {
+            throw new DataAccessException("Error: bad request");
+        }
+        String username = req.botLevel() != null ? BotService.username(req.botLevel()) : auth.username();
 
         GameData game = gameDAO.getGame(req.gameID());
         if (game == null) {
@@ -69,13 +81,13 @@ public class GameService {
             if (game.whiteUsername() != null) {
                 throw new DataAccessException("Error: already taken");
             }
-            GameData updatedGame = new GameData(game.gameID(), auth.username(), game.blackUsername(), game.gameName(), game.game());
+            GameData updatedGame = new GameData(game.gameID(), username, game.blackUsername(), game.gameName(), game.game());
             gameDAO.updateGame(updatedGame);
         } else if (color.equals("BLACK")) {
             if (game.blackUsername() != null) {
                 throw new DataAccessException("Error: already taken");
             }
-            GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(), auth.username(), game.gameName(), game.game());
+            GameData updatedGame = new GameData(game.gameID(), game.whiteUsername(), username, game.gameName(), game.game());
             gameDAO.updateGame(updatedGame);
         } else {
             throw new DataAccessException("Error: bad request");
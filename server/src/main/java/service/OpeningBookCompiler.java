@@ -0,0 +1,84 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.OpeningBook;
+import chess.engine.OpeningBookBuilder;
+import dataaccess.*;
+import model.GameData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compiles the opening book bots play from out of the games stored on the
+ * server. Run {@link #main} offline; the server maps the book at
+ * {@link #DEFAULT_PATH} when it starts, if there is one.
+ */
+public class OpeningBookCompiler {
+    public static final Path DEFAULT_PATH = Path.of("opening-book.bin");
+    /** The first dozen moves of each side. */
+    public static final int DEFAULT_MAX_PLY = 24;
+
+    private final GameDAO gameDAO;
+
+    public OpeningBookCompiler(GameDAO gameDAO) {
+        this.gameDAO = gameDAO;
+    }
+
+    /**
+     * Writes a book of the openings of the stored games that two players
+     * finished. Games with a bot in either seat are left out, so bots do not
+     * learn from their own play, and so are games still in progress or
+     * abandoned. The file is replaced in one step, so a server that has the
+     * old book mapped keeps reading it whole.
+     *
+     * @return the number of games that went into the book
+     */
+    public int compile(Path file, int maxPly) throws DataAccessException, IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        int games = 0;
+        for (GameData game : gameDAO.listGames()) {
+            if (BotService.isBot(game.whiteUsername()) || BotService.isBot(game.blackUsername())
+                    || game.game() == null || !isFinished(game.game())) {
+                continue;
+            }
+            if (builder.addGame(game.game()) > 0) {
+                games++;
+            }
+        }
+        Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+        builder.write(partial);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return games;
+    }
+
+    /** @return true if the game ended in a result, rather than being left unfinished */
+    private static boolean isFinished(ChessGame game) {
+        return game.isGameOver() || switch (game.status(game.getTeamTurn())) {
+            case CHECKMATE, STALEMATE -> true;
+            default -> false;
+        };
+    }
+
+    /** @return the book at the path, or null if there is none or it cannot be read */
+    public static OpeningBook load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(file);
+        } catch (IOException e) {
+            System.err.println("Opening book not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Compiles the book from the database into the path given, or {@link #DEFAULT_PATH}. */
+    public static void main(String[] args) throws DataAccessException, IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : DEFAULT_PATH;
+        int games = new OpeningBookCompiler(new SQLGameDAO()).compile(file, DEFAULT_MAX_PLY);
+        System.out.println("Compiled " + games + " games into " + file);
+    }
+}
@@ -38,6 +38,10 @@ public class UserService {
         if (req.username() == null || req.password() == null || req.email() == null) {
             throw new DataAccessException("Error: bad request");
         }
+        // Bot usernames mark computer seats, so no user may take one
+        if (BotService.isBot(req.username())) {
+            throw new DataAccessException("Error: already taken");
+        }
         UserData user = new UserData(req.username(), req.password(), req.email());
         userDAO.createUser(user);
 
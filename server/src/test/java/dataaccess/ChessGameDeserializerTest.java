@@ -0,0 +1,97 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameDeserializerTest {
+    private final Gson gson = ChessGameDeserializer.gson();
+
+    /** @return a game in the layout stored before bitboards, rows from rank 1 up */
+    private static String legacyJson(String[] ranks, String turn, boolean gameOver) {
+        StringBuilder json = new StringBuilder("{\"board\":{\"board\":[");
+        for (int row = 0; row < 8; row++) {
+            json.append(row > 0 ? "," : "").append('[');
+            for (int col = 0; col < 8; col++) {
+                char c = ranks[7 - row].charAt(col);
+                json.append(col > 0 ? "," : "");
+                if (c == '.') {
+                    json.append("null");
+                    continue;
+                }
+                String type = switch (Character.toUpperCase(c)) {
+                    case 'K' -> "KING";
+                    case 'Q' -> "QUEEN";
+                    case 'B' -> "BISHOP";
+                    case 'N' -> "KNIGHT";
+                    case 'R' -> "ROOK";
+                    default -> "PAWN";
+                };
+                json.append("{\"pieceColor\":\"").append(Character.isUpperCase(c) ? "WHITE" : "BLACK")
+                        .append("\",\"type\":\"").append(type).append("\"}");
+            }
+            json.append(']');
+        }
+        return json.append("]},\"currentTurn\":\"").append(turn).append("\",\"gameOver\":").append(gameOver)
+                .append('}').toString();
+    }
+
+    @Test
+    @DisplayName("Games In The Current Layout Read Back Unchanged")
+    public void currentLayoutRoundTrips() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        ChessGame read = gson.fromJson(new Gson().toJson(game), ChessGame.class);
+        assertEquals(game.toFen(), read.toFen());
+        assertEquals(game, read);
+    }
+
+    @Test
+    @DisplayName("Games In The Old Layout Keep Their Position And Turn")
+    public void legacyLayoutIsRebuilt() {
+        String json = legacyJson(new String[]{
+                "r...k..r",
+                "ppp..ppp",
+                "..n.....",
+                "...pp...",
+                "....P...",
+                ".....N..",
+                "PPPP.PPP",
+                "RNBQKB.."}, "BLACK", false);
+
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        assertEquals("r3k2r/ppp2ppp/2n5/3pp3/4P3/5N2/PPPP1PPP/RNBQKB2 b Qkq - 0 1", game.toFen());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertFalse(game.isGameOver());
+    }
+
+    @Test
+    @DisplayName("A Finished Game In The Old Layout Stays Finished")
+    public void legacyGameOverIsKept() {
+        String json = legacyJson(new String[]{
+                "....k...", "........", "........", "........",
+                "........", "........", "........", "....K..."}, "WHITE", true);
+
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        assertTrue(game.isGameOver());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Unreadable Games Fail Instead Of Loading Empty")
+    public void unreadableGamesFail() {
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"gameOver\":false}", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"board\":{}}", ChessGame.class));
+        String noKings = legacyJson(new String[]{
+                "........", "........", "........", "........",
+                "........", "........", "........", "........"}, "WHITE", false);
+        assertThrows(JsonParseException.class, () -> gson.fromJson(noKings, ChessGame.class));
+    }
+}
@@ -0,0 +1,116 @@
+package service;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.engine.Endgame;
+import chess.engine.TablebaseGenerator;
+import chess.engine.Tablebases;
+import dataaccess.*;
+import model.AnalysisData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTest {
+    private UserService userService;
+    private GameService gameService;
+    private AnalysisService analysisService;
+
+    @BeforeEach
+    public void setup() {
+        AuthDAO authDAO = new MemoryAuthDAO();
+        GameDAO gameDAO = new MemoryGameDAO();
+        userService = new UserService(new MemoryUserDAO(), authDAO);
+        gameService = new GameService(gameDAO, authDAO);
+        analysisService = new AnalysisService(gameDAO, authDAO, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        analysisService.close();
+    }
+
+    private String registerGetToken(String username) {
+        var request = new UserService.RegisterRequest(username, "password", username + "@test.com");
+        var result = assertDoesNotThrow(() -> userService.register(request));
+        return result.authToken();
+    }
+
+    @Test
+    @DisplayName("Analyze Position Finds Mate")
+    public void analyzePositionFindsMate() throws DataAccessException {
+        String token = registerGetToken("analyst");
+
+        var request = new AnalysisService.AnalysisRequest(null, "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1", 200);
+        AnalysisData analysis = analysisService.analyze(token, request).join();
+
+        assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(8, 4), null),
+                analysis.bestMove(), "Analysis should find the back-rank mate");
+        assertEquals(1, analysis.mateIn(), "White mates in one");
+        assertEquals(analysis.bestMove(), analysis.principalVariation().get(0),
+                "Principal variation should start with the best move");
+    }
+
+    @Test
+    @DisplayName("Analyze Game Scores From White")
+    public void analyzeGameScoresFromWhite() throws DataAccessException {
+        String token = registerGetToken("analyst");
+        int gameID = gameService.createGame(token, new GameService.CreateGameRequest("Review")).gameID();
+
+        AnalysisData analysis = analysisService.analyze(token,
+                new AnalysisService.AnalysisRequest(gameID, null, 100)).join();
+
+        assertNotNull(analysis.bestMove(), "The starting position has moves to suggest");
+        assertNull(analysis.mateIn(), "The starting position is no forced mate");
+        assertTrue(Math.abs(analysis.score()) < 100, "The starting position is about even");
+    }
+
+    @Test
+    @DisplayName("Analyze Tablebase Endgame Answers The Whole Mate")
+    public void analyzeTablebaseEndgame(@TempDir Path dir) throws DataAccessException, IOException {
+        Files.write(dir.resolve("KQK.tb"), TablebaseGenerator.generate(Endgame.KQK, null));
+        AuthDAO authDAO = new MemoryAuthDAO();
+        String token = new UserService(new MemoryUserDAO(), authDAO)
+                .register(new UserService.RegisterRequest("analyst", "password", "analyst@test.com")).authToken();
+
+        try (var tablebaseAnalysis = new AnalysisService(new MemoryGameDAO(), authDAO, 1, Tablebases.open(dir))) {
+            // Black is to move and gets mated
+            var request = new AnalysisService.AnalysisRequest(null, "8/8/8/3k4/8/8/3K4/7Q b - - 0 1", 10);
+            AnalysisData analysis = tablebaseAnalysis.analyze(token, request).join();
+
+            assertNotNull(analysis.mateIn(), "The tables know the mate");
+            assertTrue(analysis.mateIn() > 0, "Scores are from white, who mates");
+            assertEquals(2 * analysis.mateIn(), analysis.principalVariation().size(),
+                    "The line runs all the way to mate");
+        }
+    }
+
+    @Test
+    @DisplayName("Analyze Unauthorized")
+    public void analyzeUnauthorized() {
+        var request = new AnalysisService.AnalysisRequest(null, "8/8/8/8/8/8/8/K6k w - - 0 1", 100);
+
+        var exception = assertThrows(DataAccessException.class, () -> analysisService.analyze("bad-token", request));
+
+        assertTrue(exception.getMessage().contains("unauthorized"));
+    }
+
+    @Test
+    @DisplayName("Analyze Bad Position")
+    public void analyzeBadPosition() {
+        String token = registerGetToken("analyst");
+
+        var badFen = new AnalysisService.AnalysisRequest(null, "not a position", 100);
+        var missingGame = new AnalysisService.AnalysisRequest(9999, null, 100);
+
+        assertTrue(assertThrows(DataAccessException.class, () -> analysisService.analyze(token, badFen))
+                .getMessage().contains("bad request"));
+        assertTrue(assertThrows(DataAccessException.class, () -> analysisService.analyze(token, missingGame))
+                .getMessage().contains("bad request"));
+    }
+}
@@ -0,0 +1,149 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.engine.OpeningBook;
+import dataaccess.*;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BotServiceTest {
+    private BotService botService;
+
+    @BeforeEach
+    public void setup() {
+        botService = new BotService(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        botService.close();
+    }
+
+    @Test
+    @DisplayName("Bot Plays Mate In One")
+    public void botPlaysMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+
+        ChessMove move = botService.chooseMove(1, game, null, BotService.username(BotService.MAX_LEVEL)).join().move();
+
+        assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(8, 4), null), move,
+                "Even a bot should find the back-rank mate");
+    }
+
+    @Test
+    @DisplayName("Ponder Hit And Miss Both Answer")
+    public void ponderHitAndMissBothAnswer() throws InvalidMoveException {
+        String bot = BotService.username(3);
+        ChessGame game = new ChessGame();
+        BotService.BotMove first = botService.chooseMove(1, game, null, bot).join();
+        game.makeMove(first.move());
+        assertNotNull(first.expectedReply(), "A depth 4 search should predict a reply");
+
+        // The opponent plays the predicted reply, and the pondered search answers
+        ChessGame missed = new ChessGame();
+        missed.makeMove(first.move());
+        botService.startPondering(1, game, first.expectedReply(), bot);
+        game.makeMove(first.expectedReply());
+        ChessMove afterHit = botService.chooseMove(1, game, first.expectedReply(), bot).join().move();
+        assertTrue(game.validMoves(afterHit.getStartPosition()).contains(afterHit),
+                "A ponder hit should answer the reply that was played");
+        assertEquals(1, botService.getPonderHits(), "The answer should come from the pondered search");
+
+        // The opponent plays something else, and a fresh search answers instead
+        botService.startPondering(2, missed, first.expectedReply(), bot);
+        ChessMove other = missed.validMoves(new ChessPosition(8, 2)).stream()
+                .filter(move -> !move.equals(first.expectedReply())).findFirst().orElseThrow();
+        missed.makeMove(other);
+        ChessMove afterMiss = botService.chooseMove(2, missed, other, bot).join().move();
+        assertTrue(missed.validMoves(afterMiss.getStartPosition()).contains(afterMiss),
+                "A ponder miss should answer the reply that was played");
+        assertEquals(1, botService.getPonderHits(), "A ponder miss should not use the pondered search");
+    }
+
+    @Test
+    @DisplayName("Pondering Does Not Hold Up Another Game's Move")
+    public void ponderingDoesNotDelayMoves() throws InvalidMoveException {
+        // Game 1 ponders at the top level, which lasts until its opponent moves
+        ChessGame pondering = new ChessGame();
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove e5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        pondering.makeMove(e4);
+        botService.startPondering(1, pondering, e5, BotService.username(BotService.MAX_LEVEL));
+
+        // With one thread per pool, game 2 still gets its move straight away
+        ChessGame game = new ChessGame();
+        ChessMove move = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> botService.chooseMove(2, game, null, BotService.username(1)).join().move());
+        assertNotNull(move);
+    }
+
+    @Test
+    @DisplayName("Bot Plays From An Opening Book Of Stored Games")
+    public void botPlaysFromOpeningBook(@TempDir Path dir) throws Exception {
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        ChessMove c5 = new ChessMove(new ChessPosition(7, 3), new ChessPosition(5, 3), null);
+        ChessMove e5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+        GameDAO gameDAO = new MemoryGameDAO();
+        for (int i = 0; i < BotService.MIN_BOOK_GAMES; i++) {
+            gameDAO.createGame(new GameData(0, "white", "black", "sicilian", finished(e4, c5)));
+        }
+        // One game of e5 is not enough to trust
+        gameDAO.createGame(new GameData(0, "white", "black", "open game", finished(e4, e5)));
+        // Neither are games a bot played or games nobody finished, however many there are
+        for (int i = 0; i < BotService.MIN_BOOK_GAMES; i++) {
+            gameDAO.createGame(new GameData(0, "white", BotService.username(1), "bot game", finished(e4, e5)));
+            ChessGame unfinished = new ChessGame();
+            unfinished.makeMove(e4);
+            unfinished.makeMove(e5);
+            gameDAO.createGame(new GameData(0, "white", "black", "unfinished", unfinished));
+        }
+        gameDAO.createGame(new GameData(0, null, null, "unplayed", new ChessGame()));
+        Path file = dir.resolve("book.bin");
+
+        assertEquals(BotService.MIN_BOOK_GAMES + 1,
+                new OpeningBookCompiler(gameDAO).compile(file, OpeningBookCompiler.DEFAULT_MAX_PLY));
+
+        try (BotService booked = new BotService(1, OpeningBook.open(file), null)) {
+            ChessGame game = new ChessGame();
+            assertEquals(e4, booked.chooseMove(1, game, null, BotService.username(1)).join().move());
+            game.makeMove(e4);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(c5, booked.chooseMove(1, game, e4, BotService.username(1)).join().move(),
+                        "Only the move played in enough finished games should come from the book");
+            }
+            game.makeMove(c5);
+            // Out of the book, the bot searches
+            assertNotNull(booked.chooseMove(1, game, c5, BotService.username(1)).join().move());
+        }
+    }
+
+    /** @return a game of the given moves that White then resigned */
+    private static ChessGame finished(ChessMove... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        game.setGameOver(true);
+        return game;
+    }
+
+    @Test
+    @DisplayName("Bot Usernames Are Reserved")
+    public void botUsernamesAreReserved() {
+        UserService userService = new UserService(new MemoryUserDAO(), new MemoryAuthDAO());
+        var request = new UserService.RegisterRequest(BotService.username(1), "password", "bot@test.com");
+
+        var exception = assertThrows(DataAccessException.class, () -> userService.register(request));
+
+        assertTrue(exception.getMessage().contains("already taken"));
+    }
+}
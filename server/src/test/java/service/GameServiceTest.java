@@ -107,6 +107,32 @@ public class GameServiceTest {
 
     assertTrue(exception.getMessage().contains("already taken"));
 }
+    @Test
+    @DisplayName("Join Game Bot Seat")
+    public void joinGameBotSeat() throws DataAccessException {
+        String token = registerGetToken("player7");
+        int gameID = gameService.createGame(token, new GameService.CreateGameRequest("Versus Bot")).gameID();
+
+        gameService.joinGame(token, new GameService.JoinGameRequest("WHITE", gameID));
+        gameService.joinGame(token, new GameService.JoinGameRequest("BLACK", gameID, 3));
+
+        var game = gameDAO.getGame(gameID);
+        assertEquals("player7", game.whiteUsername(), "The user keeps their own seat");
+        assertTrue(BotService.isBot(game.blackUsername()), "The other seat goes to the bot");
+    }
+
+    @Test
+    @DisplayName("Join Game Bad Bot Level")
+    public void joinGameBadBotLevel() throws DataAccessException {
+        String token = registerGetToken("player8");
+        int gameID = gameService.createGame(token, new GameService.CreateGameRequest("Versus Bot")).gameID();
+
+        var joinReq = new GameService.JoinGameRequest("BLACK", gameID, BotService.MAX_LEVEL + 1);
+        var exception = assertThrows(DataAccessException.class, () -> gameService.joinGame(token, joinReq));
+
+        assertTrue(exception.getMessage().contains("bad request"));
+    }
+
     @Test
     @DisplayName("Clear Remove All Games")
     public void clearGames() throws DataAccessException {
@@ -0,0 +1,287 @@
+package chess;
+
+/**
+ * Static bitboard helpers shared by the board, the pieces and the game.
+ * <p>
+ * Squares are numbered 0–63 with a1 = 0, h1 = 7 and h8 = 63, so a square's
+ * index is {@code (row - 1) * 8 + (column - 1)}.
+ */
+final class Bitboards {
+    static final long FILE_A = 0x0101010101010101L;
+    static final long FILE_H = FILE_A << 7;
+    static final long RANK_1 = 0xFFL;
+    static final long RANK_2 = RANK_1 << 8;
+    static final long RANK_7 = RANK_1 << 48;
+    static final long RANK_8 = RANK_1 << 56;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    /** Squares a pawn of the given color on the given square attacks, indexed [color][square]. */
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    /** Squares strictly between two squares on a shared rank, file or diagonal, indexed [from][to]. */
+    static final long[][] BETWEEN = new long[64][64];
+    /** The full line through two squares on a shared rank, file or diagonal, indexed [from][to]. */
+    static final long[][] LINE = new long[64][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    /**
+     * Magic multipliers for the sliding attack tables. Each one maps every
+     * blocker subset of the square's relevant mask to a table slot without two
+     * different attack sets sharing a slot. They were found once by a seeded
+     * random search and are fixed here so class loading only fills the tables.
+     */
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L,
+            0x0880100008000480L, 0x4200100420080200L, 0x8100020100080400L,
+            0x0200040110886200L, 0x0200008040220411L, 0x0404800084400220L,
+            0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L,
+            0x0442000102105084L, 0x9080010020804100L, 0x0040404000201009L,
+            0x0000808010002009L, 0x2200090021D00100L, 0x0008008008040080L,
+            0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L,
+            0x1000100080080080L, 0x0050500500080100L, 0x0000020080040080L,
+            0x0C10010400420810L, 0x1040008200005104L, 0x01808240088004A0L,
+            0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+            0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L,
+            0x4600084882000431L, 0x0080002000504000L, 0x0300500020004002L,
+            0x0040408200220011L, 0x0010040008004040L, 0x0000080004008080L,
+            0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L,
+            0x0801100280080480L, 0x0242009008200600L, 0x1002000489500200L,
+            0x0040800200010080L, 0x0091800041000080L, 0x0000209300488001L,
+            0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L,
+            0x4000002840840112L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L,
+            0x0011040484620000L, 0x0081104002221000L, 0x0009012011001350L,
+            0x0081010802400380L, 0x0000420210010408L, 0x0008105002280050L,
+            0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+            0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L,
+            0x0008084202012010L, 0x2010400810018800L, 0x0445122008020840L,
+            0x0804100808002008L, 0x0008002104110100L, 0x0061005820080800L,
+            0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+            0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L,
+            0x0208080040202020L, 0x000C044084010040L, 0x00A1010002004106L,
+            0x6008210020640202L, 0x1600902112860801L, 0x00042008C1220200L,
+            0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+            0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L,
+            0x4005031221010401L, 0x0004502410008400L, 0x000500B010A20400L,
+            0x0415094050080800L, 0x080000201800A104L, 0x4022A80304000110L,
+            0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+            0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L,
+            0x0000001084040001L, 0x0322200891240200L, 0xF040200210024800L,
+            0x0140824832008042L, 0x000210020A004602L, 0x0083042805141020L,
+            0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+            0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L,
+            0xA010041108003100L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    private static final int[][] STRAIGHT = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] DIAGONAL = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = stepAttacks(sq, KNIGHT);
+            KING_ATTACKS[sq] = stepAttacks(sq, KING);
+            PAWN_ATTACKS[0][sq] = stepAttacks(sq, new int[][]{{1, 1}, {1, -1}});
+            PAWN_ATTACKS[1][sq] = stepAttacks(sq, new int[][]{{-1, 1}, {-1, -1}});
+            initLines(sq);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_MASKS[sq] = relevantMask(sq, STRAIGHT);
+            BISHOP_MASKS[sq] = relevantMask(sq, DIAGONAL);
+            ROOK_SHIFTS[sq] = 64 - Long.bitCount(ROOK_MASKS[sq]);
+            BISHOP_SHIFTS[sq] = 64 - Long.bitCount(BISHOP_MASKS[sq]);
+            ROOK_TABLE[sq] = new long[1 << Long.bitCount(ROOK_MASKS[sq])];
+            BISHOP_TABLE[sq] = new long[1 << Long.bitCount(BISHOP_MASKS[sq])];
+            fillTable(sq, ROOK_MASKS[sq], ROOK_MAGICS[sq], ROOK_SHIFTS[sq], ROOK_TABLE[sq], STRAIGHT);
+            fillTable(sq, BISHOP_MASKS[sq], BISHOP_MAGICS[sq], BISHOP_SHIFTS[sq], BISHOP_TABLE[sq], DIAGONAL);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /** @return the square index for a 1-based row and column */
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /** @return the 1-based row of a square index */
+    static int row(int sq) {
+        return (sq >>> 3) + 1;
+    }
+
+    /** @return the 1-based column of a square index */
+    static int col(int sq) {
+        return (sq & 7) + 1;
+    }
+
+    static long bit(int sq) {
+        return 1L << sq;
+    }
+
+    static boolean isValid(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    static long rookAttacks(int sq, long occupied) {
+        return ROOK_TABLE[sq][(int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    static long bishopAttacks(int sq, long occupied) {
+        return BISHOP_TABLE[sq][(int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * @return every square attacked by the given piece standing on {@code sq},
+     * whether empty or occupied by either side
+     */
+    static long attacks(ChessPiece.PieceType type, int color, int sq, long occupied) {
+        return switch (type) {
+            case KING -> KING_ATTACKS[sq];
+            case QUEEN -> queenAttacks(sq, occupied);
+            case BISHOP -> bishopAttacks(sq, occupied);
+            case KNIGHT -> KNIGHT_ATTACKS[sq];
+            case ROOK -> rookAttacks(sq, occupied);
+            case PAWN -> PAWN_ATTACKS[color][sq];
+        };
+    }
+
+    /**
+     * Walks every ray from the square one step at a time. Only used to fill the
+     * magic lookup tables when the class loads.
+     */
+    private static long slidingAttacks(int sq, long occupied, int[][] dirs) {
+        long attacks = 0L;
+        int row = row(sq);
+        int col = col(sq);
+        for (int[] d : dirs) {
+            int r = row + d[0];
+            int c = col + d[1];
+            while (isValid(r, c)) {
+                long b = bit(square(r, c));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * @return the squares a pawn of the given color on {@code from} can move to,
+     * counting single and double pushes and diagonal captures
+     */
+    static long pawnTargets(int color, int from, long occupied, long enemy) {
+        long empty = ~occupied;
+        long pawn = bit(from);
+        long targets;
+        if (color == 0) {
+            long single = (pawn << 8) & empty;
+            targets = single | ((single & (RANK_2 << 8)) << 8) & empty;
+        } else {
+            long single = (pawn >>> 8) & empty;
+            targets = single | ((single & (RANK_7 >>> 8)) >>> 8) & empty;
+        }
+        return targets | (PAWN_ATTACKS[color][from] & enemy);
+    }
+
+    /**
+     * @return the squares whose occupancy can change a slider's attacks from
+     * {@code sq}; the last square of each ray never blocks anything beyond it
+     */
+    private static long relevantMask(int sq, int[][] dirs) {
+        long mask = 0L;
+        for (int[] d : dirs) {
+            int r = row(sq) + d[0];
+            int c = col(sq) + d[1];
+            while (isValid(r + d[0], c + d[1])) {
+                mask |= bit(square(r, c));
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Stores the attack set of every blocker subset of {@code mask} in the slot
+     * its magic product selects.
+     */
+    private static void fillTable(int sq, long mask, long magic, int shift, long[] table, int[][] dirs) {
+        long subset = 0L;
+        do {
+            table[(int) ((subset * magic) >>> shift)] = slidingAttacks(sq, subset, dirs);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    private static void initLines(int sq) {
+        for (int[][] dirs : new int[][][]{STRAIGHT, DIAGONAL}) {
+            for (int[] d : dirs) {
+                long ray = 0L;
+                int r = row(sq) + d[0];
+                int c = col(sq) + d[1];
+                while (isValid(r, c)) {
+                    int to = square(r, c);
+                    BETWEEN[sq][to] = ray;
+                    ray |= bit(to);
+                    r += d[0];
+                    c += d[1];
+                }
+                long line = ray | bit(sq) | rayFrom(sq, -d[0], -d[1]);
+                long walk = ray;
+                while (walk != 0) {
+                    LINE[sq][Long.numberOfTrailingZeros(walk)] = line;
+                    walk &= walk - 1;
+                }
+            }
+        }
+    }
+
+    private static long rayFrom(int sq, int dr, int dc) {
+        long ray = 0L;
+        int r = row(sq) + dr;
+        int c = col(sq) + dc;
+        while (isValid(r, c)) {
+            ray |= bit(square(r, c));
+            r += dr;
+            c += dc;
+        }
+        return ray;
+    }
+
+    private static long stepAttacks(int sq, int[][] steps) {
+        long attacks = 0L;
+        for (int[] s : steps) {
+            int r = row(sq) + s[0];
+            int c = col(sq) + s[1];
+            if (isValid(r, c)) {
+                attacks |= bit(square(r, c));
+            }
+        }
+        return attacks;
+    }
+}
@@ -3,13 +3,78 @@ import java.util.Arrays;
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * The position is stored as twelve bitboards, one per color and piece type,
+ * plus the side to move, the castling rights and the en passant file. Bit
+ * {@code n} of a bitboard is the square {@code (row - 1) * 8 + (column - 1)}.
+ * <p>
+ * A new board grants every castling right. A right is only used while the king
+ * and the rook still stand on their home squares, so a board set up piece by
+ * piece can castle exactly when its kings and rooks are at home. Moving the
+ * king or a rook, or capturing on a rook's home square, clears the right for
+ * the rest of the game.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessBoard {
-    private ChessPiece[][] board;
+    private static final int UNDO_TO_SHIFT = 6;
+    private static final int UNDO_MOVED_SHIFT = 12;
+    private static final int UNDO_CAPTURED_SHIFT = 16;
+    private static final int UNDO_PLACED_SHIFT = 20;
+    private static final int UNDO_FLAG_SHIFT = 24;
+    private static final int UNDO_CASTLING_SHIFT = 28;
+    private static final int UNDO_EN_PASSANT_SHIFT = 32;
+    private static final int UNDO_CLOCK_SHIFT = 36;
+    private static final int NO_PIECE = 0xF;
+
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = 0xF;
+
+    /** Castling rights kept when a move starts or ends on a square, indexed by square. */
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[0] = ~WHITE_QUEENSIDE & ALL_CASTLING;
+        CASTLING_KEPT[4] = ~(WHITE_KINGSIDE | WHITE_QUEENSIDE) & ALL_CASTLING;
+        CASTLING_KEPT[7] = ~WHITE_KINGSIDE & ALL_CASTLING;
+        CASTLING_KEPT[56] = ~BLACK_QUEENSIDE & ALL_CASTLING;
+        CASTLING_KEPT[60] = ~(BLACK_KINGSIDE | BLACK_QUEENSIDE) & ALL_CASTLING;
+        CASTLING_KEPT[63] = ~BLACK_KINGSIDE & ALL_CASTLING;
+    }
+
+    private long[] bitboards;
+    private long[] occupancy;
+    private ChessGame.TeamColor sideToMove;
+    private int castlingRights;
+    private int enPassantFile;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private long zobristKey;
+
     public ChessBoard() {
-        board = new ChessPiece[8][8]; // standard 8x8 chessboard
+        bitboards = new long[12];
+        occupancy = new long[2];
+        sideToMove = ChessGame.TeamColor.WHITE;
+        castlingRights = ALL_CASTLING;
+        enPassantFile = -1;
+        fullmoveNumber = 1;
+        zobristKey = Zobrist.CASTLING[ALL_CASTLING];
+    }
+
+    /** Creates an independent copy of another board. */
+    public ChessBoard(ChessBoard other) {
+        bitboards = other.bitboards.clone();
+        occupancy = other.occupancy.clone();
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantFile = other.enPassantFile;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        zobristKey = other.zobristKey;
     }
 
     /**
@@ -17,32 +82,261 @@ public class ChessBoard {
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
+     * @throws IllegalArgumentException if the position is off the board
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[toIndex(position.getRow())][toIndex(position.getColumn())] = piece;
+        if (!Bitboards.isValid(position.getRow(), position.getColumn())) {
+            throw new IllegalArgumentException("Position " + position + " is off the board");
+        }
+        int sq = Bitboards.square(position);
+        clearSquare(sq);
+        if (piece != null) {
+            setSquare(sq, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
      * Gets a chess piece on the chessboard
      *
      * @param position The position to get the piece from
-     * @return Either the piece at the position, or null if none
+     * @return Either the piece at the position, or null if none or the
+     * position is off the board
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[toIndex(position.getRow())][toIndex(position.getColumn())];
+        if (!Bitboards.isValid(position.getRow(), position.getColumn())) {
+            return null;
+        }
+        return getPiece(Bitboards.square(position));
+    }
+
+    /**
+     * @param sq square index, see {@link ChessBoard}
+     * @return the piece on the square, or null if none
+     */
+    public ChessPiece getPiece(int sq) {
+        int index = pieceIndexAt(sq);
+        return index < 0 ? null : ChessPiece.fromIndex(index);
     }
 
     /**
      * Resets the board to the default starting layout.
      */
     public void resetBoard() {
-        board = new ChessPiece[8][8];
+        Arrays.fill(bitboards, 0L);
+        Arrays.fill(occupancy, 0L);
+        sideToMove = ChessGame.TeamColor.WHITE;
+        castlingRights = ALL_CASTLING;
+        enPassantFile = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        zobristKey = Zobrist.CASTLING[ALL_CASTLING];
         setupBackRow(0, ChessGame.TeamColor.WHITE);
         setupPawnRow(1, ChessGame.TeamColor.WHITE);
         setupBackRow(7, ChessGame.TeamColor.BLACK);
         setupPawnRow(6, ChessGame.TeamColor.BLACK);
     }
 
+    /**
+     * Plays a move in place and passes the turn to the other side. The move is
+     * not checked for legality, and whatever stands on the target square is
+     * removed. A king moving two files castles, and a pawn moving onto the en
+     * passant square captures en passant.
+     *
+     * @param from      square the moving piece stands on
+     * @param to        square the piece moves to
+     * @param promotion piece type a pawn promotes to, or null
+     * @return an undo record that {@link #unmakeMove(long)} uses to restore the
+     * position exactly
+     */
+    public long makeMove(int from, int to, ChessPiece.PieceType promotion) {
+        int flag = promotion != null ? promotion.ordinal() : specialFlag(pieceIndexAt(from), from, to);
+        return makeMove(from, to, flag);
+    }
+
+    /**
+     * Plays an {@link Move encoded move} in place, see
+     * {@link #makeMove(int, int, ChessPiece.PieceType)}. The move's flag is
+     * trusted, so castles and en passant captures must carry theirs.
+     *
+     * @return an undo record for {@link #unmakeMove(long)}
+     */
+    public long makeMove(int move) {
+        return makeMove(Move.from(move), Move.to(move), Move.flag(move));
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(int, int, ChessPiece.PieceType)}.
+     * Moves must be unmade in the reverse order they were made.
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(long undo) {
+        int from = (int) (undo & 0x3F);
+        int to = (int) (undo >>> UNDO_TO_SHIFT) & 0x3F;
+        int moved = (int) (undo >>> UNDO_MOVED_SHIFT) & 0xF;
+        int captured = (int) (undo >>> UNDO_CAPTURED_SHIFT) & 0xF;
+        int placed = (int) (undo >>> UNDO_PLACED_SHIFT) & 0xF;
+        int flag = (int) (undo >>> UNDO_FLAG_SHIFT) & 0xF;
+
+        sideToMove = opponent(sideToMove);
+        zobristKey ^= Zobrist.BLACK_TO_MOVE;
+        setCastlingRights((int) (undo >>> UNDO_CASTLING_SHIFT) & 0xF);
+        setEnPassantFile((int) ((undo >>> UNDO_EN_PASSANT_SHIFT) & 0xF) - 1);
+        halfmoveClock = (int) (undo >>> UNDO_CLOCK_SHIFT) & 0xFFFF;
+        if (moved >= 6) {
+            fullmoveNumber--;
+        }
+
+        removePiece(to, placed);
+        setSquare(from, moved);
+        if (flag == Move.FLAG_EN_PASSANT) {
+            setSquare(enPassantVictim(from, to), captured);
+        } else if (captured != NO_PIECE) {
+            setSquare(to, captured);
+        }
+        if (flag == Move.FLAG_CASTLE) {
+            int rookTo = (from + to) >>> 1;
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rook = pieceIndex(ChessPiece.fromIndex(moved).getTeamColor(), ChessPiece.PieceType.ROOK);
+            removePiece(rookTo, rook);
+            setSquare(rookFrom, rook);
+        }
+    }
+
+    /**
+     * @return the {@link Move encoded} form of an object move in this position,
+     * flagged as a castle or an en passant capture where it is one
+     */
+    public int encode(ChessMove move) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return Move.encode(from, to, promotion != null ? promotion.ordinal() : specialFlag(pieceIndexAt(from), from, to));
+    }
+
+    /**
+     * Adds every legal move of the side to move to {@code moves} as
+     * {@link Move encoded moves}.
+     */
+    public void generateMoves(MoveList moves) {
+        new MoveGenerator(this, sideToMove).generate(moves);
+    }
+
+    /**
+     * Adds the legal captures and promotions of the side to move to
+     * {@code moves} as {@link Move encoded moves}.
+     */
+    public void generateCaptures(MoveList moves) {
+        new MoveGenerator(this, sideToMove).generateCaptures(moves);
+    }
+
+    /** @return the side to move in this position */
+    public ChessGame.TeamColor getTeamTurn() {
+        return sideToMove;
+    }
+
+    /**
+     * Sets the side to move. Handing the turn over this way forfeits any en
+     * passant capture, since it no longer follows the double push directly.
+     */
+    public void setTeamTurn(ChessGame.TeamColor team) {
+        if (team != sideToMove && enPassantFile >= 0) {
+            setEnPassantFile(-1);
+        }
+        zobristKey ^= Zobrist.side(sideToMove) ^ Zobrist.side(team);
+        this.sideToMove = team;
+    }
+
+    /**
+     * @return the 64-bit Zobrist key of this position, covering every piece, the
+     * side to move, the castling rights and the en passant file. It is kept up to
+     * date on every change to the board.
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return the castling rights still held, as a mask of
+     * {@link #WHITE_KINGSIDE}, {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE}
+     * and {@link #BLACK_QUEENSIDE}
+     */
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return true if the side still holds a castling right. It can only castle
+     * while its king and that rook also stand on their home squares.
+     */
+    public boolean hasCastlingRights(ChessGame.TeamColor color) {
+        int rights = color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE | WHITE_QUEENSIDE
+                : BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        return (castlingRights & rights) != 0;
+    }
+
+    void setCastlingRights(int rights) {
+        zobristKey ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[rights];
+        castlingRights = rights;
+    }
+
+    /**
+     * @return the file (0–7) of the square a pawn skipped over with a double
+     * push on the last move, or -1 if no en passant capture is possible
+     */
+    int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    void setEnPassantFile(int file) {
+        zobristKey ^= Zobrist.enPassant(enPassantFile) ^ Zobrist.enPassant(file);
+        enPassantFile = file;
+    }
+
+    /**
+     * @return the number of half-moves since the last capture or pawn move, for
+     * the fifty-move rule. It is not part of the Zobrist key.
+     */
+    int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /** @return the number of the current full move, starting at 1 and increasing after Black moves */
+    int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /** @return the square a pawn of the side to move captures en passant onto, or -1 */
+    int enPassantSquare() {
+        if (enPassantFile < 0) {
+            return -1;
+        }
+        return enPassantFile + (sideToMove == ChessGame.TeamColor.WHITE ? 40 : 16);
+    }
+
+    /** @return the bitboard of all pieces of the given color and type */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards[pieceIndex(color, type)];
+    }
+
+    /** @return the bitboard of every piece belonging to the given color */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /** @return the bitboard of every occupied square */
+    public long getOccupancy() {
+        return occupancy[0] | occupancy[1];
+    }
+
     /** Sets up the back row pieces. */
     private void setupBackRow(int row, ChessGame.TeamColor color) {
         ChessPiece.PieceType[] order = {
@@ -52,31 +346,197 @@ public class ChessBoard {
                 ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
         };
         for (int col = 0; col < 8; col++) {
-            board[row][col] = new ChessPiece(color, order[col]);
+            setSquare(row * 8 + col, pieceIndex(color, order[col]));
         }
     }
 
     /** Sets up a row of pawns. */
     private void setupPawnRow(int row, ChessGame.TeamColor color) {
         for (int col = 0; col < 8; col++) {
-            board[row][col] = new ChessPiece(color, ChessPiece.PieceType.PAWN);
+            setSquare(row * 8 + col, pieceIndex(color, ChessPiece.PieceType.PAWN));
+        }
+    }
+
+    /** @return the index into the bitboard array for a color and piece type */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /** @return the index of the piece on a square, or -1 if the square is empty */
+    int pieceIndexAt(int sq) {
+        long b = Bitboards.bit(sq);
+        if (((occupancy[0] | occupancy[1]) & b) == 0) {
+            return -1;
+        }
+        int first = (occupancy[0] & b) != 0 ? 0 : 6;
+        for (int i = first; i < first + 6; i++) {
+            if ((bitboards[i] & b) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the square of the given team's king, or -1 if it has none. The
+     * king bitboard is updated on every change to the board, so this is a
+     * single bit scan rather than a search.
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long king = bitboards[pieceIndex(color, ChessPiece.PieceType.KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /** @return true if the given team's king is attacked; false if it has no king */
+    public boolean isInCheck(ChessGame.TeamColor color) {
+        int king = kingSquare(color);
+        return king >= 0 && isSquareAttacked(king, opponent(color));
+    }
+
+    /**
+     * @return true if any piece of the given color attacks the square
+     */
+    boolean isSquareAttacked(int sq, ChessGame.TeamColor byColor) {
+        return attackersOf(sq, byColor, getOccupancy()) != 0;
+    }
+
+    /**
+     * Finds the pieces of one color attacking a square by looking outward from
+     * the square: a knight, king or pawn attacks it exactly when the square
+     * attacks that piece the same way (with the pawn direction flipped), and a
+     * slider attacks it when a ray from the square reaches it.
+     *
+     * @param occupied the occupancy the sliding rays are blocked by
+     * @return the bitboard of attackers
+     */
+    public long attackersOf(int sq, ChessGame.TeamColor byColor, long occupied) {
+        int offset = byColor.ordinal() * 6;
+        long queens = bitboards[offset + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (Bitboards.KNIGHT_ATTACKS[sq] & bitboards[offset + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Bitboards.KING_ATTACKS[sq] & bitboards[offset + ChessPiece.PieceType.KING.ordinal()])
+                | (Bitboards.PAWN_ATTACKS[1 - byColor.ordinal()][sq]
+                    & bitboards[offset + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Bitboards.rookAttacks(sq, occupied)
+                    & (bitboards[offset + ChessPiece.PieceType.ROOK.ordinal()] | queens))
+                | (Bitboards.bishopAttacks(sq, occupied)
+                    & (bitboards[offset + ChessPiece.PieceType.BISHOP.ordinal()] | queens));
+    }
+
+    private long makeMove(int from, int to, int flag) {
+        int moved = pieceIndexAt(from);
+        int color = moved / 6;
+        int captureSquare = flag == Move.FLAG_EN_PASSANT ? enPassantVictim(from, to) : to;
+        int captured = pieceIndexAt(captureSquare);
+        int placed = flag >= 1 && flag <= 4 ? color * 6 + flag : moved;
+        long undo = from
+                | (long) to << UNDO_TO_SHIFT
+                | (long) moved << UNDO_MOVED_SHIFT
+                | (long) (captured & 0xF) << UNDO_CAPTURED_SHIFT
+                | (long) placed << UNDO_PLACED_SHIFT
+                | (long) flag << UNDO_FLAG_SHIFT
+                | (long) castlingRights << UNDO_CASTLING_SHIFT
+                | (long) (enPassantFile + 1) << UNDO_EN_PASSANT_SHIFT
+                | (long) (halfmoveClock & 0xFFFF) << UNDO_CLOCK_SHIFT;
+
+        if (captured >= 0) {
+            removePiece(captureSquare, captured);
+        }
+        removePiece(from, moved);
+        setSquare(to, placed);
+        if (flag == Move.FLAG_CASTLE) {
+            int rook = color * 6 + ChessPiece.PieceType.ROOK.ordinal();
+            removePiece(to > from ? from + 3 : from - 4, rook);
+            setSquare((from + to) >>> 1, rook);
+        }
+
+        int rights = castlingRights & CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        if (rights != castlingRights) {
+            setCastlingRights(rights);
+        }
+        int file = -1;
+        if (moved % 6 == ChessPiece.PieceType.PAWN.ordinal() && (from ^ to) == 16) {
+            int skipped = (from + to) >>> 1;
+            long enemyPawns = bitboards[(1 - color) * 6 + ChessPiece.PieceType.PAWN.ordinal()];
+            if ((Bitboards.PAWN_ATTACKS[color][skipped] & enemyPawns) != 0) {
+                file = skipped & 7;
+            }
+        }
+        if (file != enPassantFile) {
+            setEnPassantFile(file);
+        }
+        halfmoveClock = captured >= 0 || moved % 6 == ChessPiece.PieceType.PAWN.ordinal() ? 0 : halfmoveClock + 1;
+        if (color == 1) {
+            fullmoveNumber++;
+        }
+        sideToMove = opponent(sideToMove);
+        zobristKey ^= Zobrist.BLACK_TO_MOVE;
+        return undo;
+    }
+
+    /** @return the flag for a non-promoting move of the given piece */
+    private int specialFlag(int piece, int from, int to) {
+        if (piece % 6 == ChessPiece.PieceType.KING.ordinal() && Math.abs(to - from) == 2) {
+            return Move.FLAG_CASTLE;
+        }
+        if (piece % 6 == ChessPiece.PieceType.PAWN.ordinal() && to == enPassantSquare()) {
+            return Move.FLAG_EN_PASSANT;
+        }
+        return Move.FLAG_NORMAL;
+    }
+
+    /** @return the square of the pawn taken by an en passant capture from {@code from} to {@code to} */
+    private static int enPassantVictim(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    private void setSquare(int sq, int index) {
+        long b = Bitboards.bit(sq);
+        bitboards[index] |= b;
+        occupancy[index / 6] |= b;
+        zobristKey ^= Zobrist.PIECE_SQUARE[index][sq];
+    }
+
+    private void removePiece(int sq, int index) {
+        long b = ~Bitboards.bit(sq);
+        bitboards[index] &= b;
+        occupancy[index / 6] &= b;
+        zobristKey ^= Zobrist.PIECE_SQUARE[index][sq];
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement alone, ignoring the side to
+     * move, the castling rights and the en passant file
+     */
+    private long placementKey() {
+        return zobristKey ^ Zobrist.side(sideToMove) ^ Zobrist.CASTLING[castlingRights]
+                ^ Zobrist.enPassant(enPassantFile);
+    }
+
+    private void clearSquare(int sq) {
+        int index = pieceIndexAt(sq);
+        if (index >= 0) {
+            removePiece(sq, index);
         }
     }
 
-    /** Helper: convert chess row/col (1–8) to array index (0–7). */
-    private int toIndex(int num) {
-        return num - 1;
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 
     @Override
     public boolean equals(Object obj) {
-        return (obj instanceof ChessBoard)
-                && Arrays.deepEquals(board, ((ChessBoard) obj).board);
+        return (obj instanceof ChessBoard other)
+                && placementKey() == other.placementKey()
+                && Arrays.equals(bitboards, other.bitboards);
     }
 
+    /**
+     * Boards compare equal on piece placement alone, so the hash leaves out the
+     * side to move, castling rights and en passant file as well.
+     */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(placementKey());
     }
 
     @Override
@@ -1,7 +1,9 @@
 package chess;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
-import java.util.ArrayList;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -10,23 +12,60 @@ import java.util.ArrayList;
  * signature of the existing methods.
  */
 public class ChessGame {
+    private static final int INITIAL_HISTORY = 64;
+    /** Half-moves without a capture or pawn move after which the game is drawn. */
+    static final int FIFTY_MOVE_PLIES = 100;
+
     private ChessBoard board;
-    private TeamColor currentTurn;
     private boolean gameOver = false;
-    private TeamColor getOpponentColor(TeamColor teamColor){
-        return (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
-    }
+
+    /*
+     * The moves played since the game's start position, one entry per ply: the
+     * encoded move, the board's undo record (which holds the captured piece,
+     * castling rights and en passant file) and the Zobrist key before the move.
+     * Only the first ply entries are in use.
+     */
+    private int[] moves = new int[INITIAL_HISTORY];
+    private long[] undos = new long[INITIAL_HISTORY];
+    private long[] keys = new long[INITIAL_HISTORY];
+    private int ply;
+
+    /*
+     * Legal targets of the side to move, indexed by start square, computed at
+     * most once per position. The cache is dropped by makeMove, setBoard and
+     * setTeamTurn. It is also checked against the board's Zobrist key, so edits
+     * made straight through getBoard() cannot leave it stale. Transient, so it
+     * never reaches the JSON form of the game.
+     */
+    private transient long[] legalTargets;
+    private transient long legalKey;
+    private transient boolean legalInCheck;
+
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
-        currentTurn = TeamColor.WHITE;
+    }
+
+    /**
+     * Creates a copy of another game, including its move history, so that
+     * repetitions and take-backs work the same in the copy.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        board = new ChessBoard(other.board);
+        gameOver = other.gameOver;
+        moves = other.moves.clone();
+        undos = other.undos.clone();
+        keys = other.keys.clone();
+        ply = other.ply;
     }
 
     /**
      * @return Which team's turn it is
      */
     public TeamColor getTeamTurn() {
-        return currentTurn;
+        return board.getTeamTurn();
     }
 
     /**
@@ -35,7 +74,8 @@ public class ChessGame {
      * @param team the team whose turn it is
      */
     public void setTeamTurn(TeamColor team) {
-        this.currentTurn = team;
+        board.setTeamTurn(team);
+        invalidateLegalMoves();
     }
 
     /**
@@ -46,12 +86,26 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * The state of one team's position, as reported by {@link #status(TeamColor)}
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /** The current position has now occurred three times. */
+        THREEFOLD_REPETITION,
+        /** Fifty moves by each side have passed without a capture or pawn move. */
+        FIFTY_MOVE_RULE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
      * @param startPosition the piece to get valid moves for
      * @return Set of valid moves for requested piece, or null if no piece at
-     * startPosition
+     * startPosition or it is off the board
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = board.getPiece(startPosition);
@@ -59,16 +113,28 @@ public class ChessGame {
             return null;
         }
 
-        Collection<ChessMove> allMoves = piece.pieceMoves(board, startPosition);
-        ArrayList<ChessMove> safeMoves = new ArrayList<>();
-
-        for (ChessMove move : allMoves) {
-            if (isMoveValid(piece, move)) {
-                safeMoves.add(move);
-            }
+        int from = Bitboards.square(startPosition);
+        MoveList moves = new MoveList(ChessPiece.PIECE_MOVE_CAPACITY);
+        if (piece.getTeamColor() == getTeamTurn()) {
+            MoveGenerator.addMoves(moves, board, from, legalTargets()[from]);
+        } else {
+            new MoveGenerator(board, piece.getTeamColor()).addMoves(from, moves);
         }
+        return moves.toChessMoves();
+    }
 
-        return safeMoves;
+    /**
+     * Adds every legal move of the team whose turn it is to {@code moves} as
+     * {@link Move encoded moves}.
+     */
+    public void generateMoves(MoveList moves) {
+        long[] targets = legalTargets();
+        long pieces = board.getOccupancy(getTeamTurn());
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            MoveGenerator.addMoves(moves, board, from, targets[from]);
+        }
     }
 
     /**
@@ -78,24 +144,93 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
+        if (!isOnBoard(move.getStartPosition()) || !isOnBoard(move.getEndPosition())) {
+            throw new InvalidMoveException("Position is off the board");
+        }
         ChessPiece piece = board.getPiece(move.getStartPosition());
 
         if (piece == null) {
             throw new InvalidMoveException("No piece at start position");
         }
 
-        if (piece.getTeamColor() != currentTurn) {
+        if (piece.getTeamColor() != getTeamTurn()) {
             throw new InvalidMoveException("Not turn");
         }
 
-        Collection<ChessMove> validMovesList = validMoves(move.getStartPosition());
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        boolean reachable = (legalTargets()[from] & Bitboards.bit(to)) != 0;
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        boolean promotionMatches = MoveGenerator.isPromotion(board, from, to)
+                ? promotion != null && promotion != ChessPiece.PieceType.KING && promotion != ChessPiece.PieceType.PAWN
+                : promotion == null;
 
-        if (validMovesList == null || !validMovesList.contains(move)) {
+        if (!reachable || !promotionMatches) {
             throw new InvalidMoveException("This is Invalid move");
         }
 
-        executeMove(board, move);
-        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        int encoded = board.encode(move);
+        if (ply == moves.length) {
+            int capacity = ply * 2;
+            moves = Arrays.copyOf(moves, capacity);
+            undos = Arrays.copyOf(undos, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        keys[ply] = board.getZobristKey();
+        undos[ply] = board.makeMove(encoded);
+        moves[ply] = encoded;
+        ply++;
+        invalidateLegalMoves();
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(ChessMove)}, restoring
+     * the position and turn from the stored undo record.
+     *
+     * @return the move taken back, or null if no move has been made since the
+     * game started or its board was last set
+     */
+    public ChessMove undoMove() {
+        if (ply == 0) {
+            return null;
+        }
+        ply--;
+        board.unmakeMove(undos[ply]);
+        invalidateLegalMoves();
+        return Move.toChessMove(moves[ply]);
+    }
+
+    /**
+     * @return the moves made since the game started or its board was last set,
+     * oldest first
+     */
+    public List<ChessMove> getMoveHistory() {
+        List<ChessMove> history = new ArrayList<>(ply);
+        for (int i = 0; i < ply; i++) {
+            history.add(Move.toChessMove(moves[i]));
+        }
+        return history;
+    }
+
+    /**
+     * @return the Zobrist keys of the positions since the last capture or pawn
+     * move, oldest first, not counting the current position; only these can
+     * come around again
+     */
+    public long[] getRepetitionKeys() {
+        int oldest = Math.max(0, ply - board.getHalfmoveClock());
+        return Arrays.copyOfRange(keys, oldest, ply);
+    }
+
+    /** @return the {@link Move encoded} move made at the given ply, counting from 0 */
+    public int getMove(int index) {
+        Objects.checkIndex(index, ply);
+        return moves[index];
+    }
+
+    /** @return the number of half-moves made since the game started or its board was last set */
+    public int getPlyCount() {
+        return ply;
     }
 
     /**
@@ -105,15 +240,7 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
-        TeamColor opponentColor = getOpponentColor(teamColor);
-
-        for (int row = 1; row <= 8; row++) {
-            if (isKingUnderAttackInRow(row, kingPosition, opponentColor)) {
-                return true;
-            }
-        }
-        return false;
+        return board.isInCheck(teamColor);
     }
 
     /**
@@ -123,10 +250,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-        return !hasAnyValidMoves(teamColor);
+        return status(teamColor) == GameStatus.CHECKMATE;
     }
 
     /**
@@ -137,197 +261,165 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        return !hasAnyValidMoves(teamColor);
+        return status(teamColor) == GameStatus.STALEMATE;
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Determines whether the given team is in check, checkmate or stalemate in a
+     * single pass. The king's attackers are found once, and the search for a
+     * legal move stops at the first one found. A position that is neither
+     * checkmate nor stalemate reports a draw by repetition or by the fifty-move
+     * rule ahead of check.
      *
-     * @param board the new board to use
+     * @param teamColor which team to evaluate
+     * @return the status of the team's position
      */
-    public void setBoard(ChessBoard board) {
-        this.board = board;
+    public GameStatus status(TeamColor teamColor) {
+        boolean inCheck;
+        boolean hasMoves;
+        if (teamColor == getTeamTurn()) {
+            hasMoves = hasAnyTargets(legalTargets());
+            inCheck = legalInCheck;
+        } else {
+            MoveGenerator generator = new MoveGenerator(board, teamColor);
+            inCheck = generator.inCheck();
+            hasMoves = generator.hasAnyMoves();
+        }
+        if (!hasMoves) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        if (isThreefoldRepetition()) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        if (isFiftyMoveDraw()) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
     }
 
     /**
-     * Gets the current chessboard
+     * Determines if the current position has occurred at least three times with
+     * the same side to move, castling rights and en passant file. Only positions
+     * since the last capture or pawn move can repeat, so just those entries of
+     * the key history are compared, every other ply.
      *
-     * @return the chessboard
+     * @return True if the position has been repeated three times
      */
-    public ChessBoard getBoard() {
-        return board;
-    }
-
-    // Private helper methods
-
-    private boolean isMoveValid(ChessPiece piece, ChessMove move) {
-        ChessBoard testBoard = copyBoard();
-        executeMove(testBoard, move);
-        return !isKingInCheckOnBoard(testBoard, piece.getTeamColor());
-    }
-
-    private boolean isKingUnderAttackInRow(int row, ChessPosition kingPosition,
-                                           TeamColor opponentColor) {
-        for (int col = 1; col <= 8; col++) {
-            ChessPosition position = new ChessPosition(row, col);
-            ChessPiece piece = board.getPiece(position);
-
-            if (isOpponentPieceAttackingKing(piece, position, kingPosition, opponentColor)) {
+    public boolean isThreefoldRepetition() {
+        long key = board.getZobristKey();
+        int oldest = Math.max(0, ply - board.getHalfmoveClock());
+        int repeats = 0;
+        for (int i = ply - 2; i >= oldest; i -= 2) {
+            if (keys[i] == key && ++repeats == 2) {
                 return true;
             }
         }
         return false;
     }
 
-    private boolean isOpponentPieceAttackingKing(ChessPiece piece, ChessPosition position,
-                                                 ChessPosition kingPosition,
-                                                 TeamColor opponentColor) {
-        if (piece == null || piece.getTeamColor() != opponentColor) {
-            return false;
-        }
-
-        Collection<ChessMove> moves = piece.pieceMoves(board, position);
-        for (ChessMove move : moves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return True if fifty moves by each side have been made without a capture
+     * or pawn move
+     */
+    public boolean isFiftyMoveDraw() {
+        return board.getHalfmoveClock() >= FIFTY_MOVE_PLIES;
     }
 
-    private ChessPosition findKing(TeamColor team) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (isKingAtPosition(piece, team)) {
-                    return position;
-                }
-            }
-        }
-        return null;
+    /** @return the number of half-moves since the last capture or pawn move */
+    public int getHalfmoveClock() {
+        return board.getHalfmoveClock();
     }
 
-    private boolean isKingAtPosition(ChessPiece piece, TeamColor team) {
-        return piece != null &&
-                piece.getPieceType() == ChessPiece.PieceType.KING &&
-                piece.getTeamColor() == team;
+    /**
+     * Creates a game from a position in Forsyth–Edwards Notation.
+     *
+     * @param fen the position, such as
+     *            {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1};
+     *            the halfmove clock and fullmove number may be left off
+     * @return a new game starting from that position
+     * @throws IllegalArgumentException if the text is not a valid FEN position
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
     }
 
-    private ChessPosition findKingOnBoard(ChessBoard testBoard, TeamColor team) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = testBoard.getPiece(position);
-                if (isKingAtPosition(piece, team)) {
-                    return position;
-                }
-            }
-        }
-        return null;
+    /** @return the current position in Forsyth–Edwards Notation */
+    public String toFen() {
+        return Fen.format(this);
     }
 
-    private boolean isKingInCheckOnBoard(ChessBoard testBoard, TeamColor teamColor) {
-        ChessPosition kingPosition = findKingOnBoard(testBoard, teamColor);
-        if (kingPosition == null) {
-            return false;
-        }
-
-        TeamColor opponentColor = getOpponentColor(teamColor);
-
-        for (int row = 1; row <= 8; row++) {
-            if (isKingUnderAttackInRowOnBoard(testBoard, row, kingPosition, opponentColor)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return the 64-bit Zobrist key of the current position, including the side
+     * to move
+     */
+    public long getZobristKey() {
+        return board.getZobristKey();
     }
 
-    private boolean isKingUnderAttackInRowOnBoard(ChessBoard testBoard, int row,
-                                                  ChessPosition kingPosition,
-                                                  TeamColor opponentColor) {
-        for (int col = 1; col <= 8; col++) {
-            ChessPosition position = new ChessPosition(row, col);
-            ChessPiece piece = testBoard.getPiece(position);
-
-            if (isOpponentPieceAttackingKingOnBoard(testBoard, piece, position,
-                    kingPosition, opponentColor)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Sets this game's chessboard with a given board. The move history starts
+     * over from the new position.
+     *
+     * @param board the new board to use
+     */
+    public void setBoard(ChessBoard board) {
+        board.setTeamTurn(getTeamTurn());
+        this.board = board;
+        ply = 0;
+        invalidateLegalMoves();
     }
 
-    private boolean isOpponentPieceAttackingKingOnBoard(ChessBoard testBoard,
-                                                        ChessPiece piece,
-                                                        ChessPosition position,
-                                                        ChessPosition kingPosition,
-                                                        TeamColor opponentColor) {
-        if (piece == null || piece.getTeamColor() != opponentColor) {
-            return false;
-        }
-
-        Collection<ChessMove> moves = piece.pieceMoves(testBoard, position);
-        for (ChessMove move : moves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Gets the current chessboard
+     *
+     * @return the chessboard
+     */
+    public ChessBoard getBoard() {
+        return board;
     }
 
-    private ChessBoard copyBoard() {
-        ChessBoard newBoard = new ChessBoard();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null) {
-                    ChessPiece newPiece = new ChessPiece(piece.getTeamColor(),
-                            piece.getPieceType());
-                    newBoard.addPiece(position, newPiece);
-                }
+    // Private helper methods
+
+    /**
+     * @return the cached legal targets of the side to move, computing them if
+     * the position changed since they were last built
+     */
+    private long[] legalTargets() {
+        if (legalTargets == null || legalKey != board.getZobristKey()) {
+            if (legalTargets == null) {
+                legalTargets = new long[64];
             }
+            MoveGenerator generator = new MoveGenerator(board, getTeamTurn());
+            generator.fillTargets(legalTargets);
+            legalInCheck = generator.inCheck();
+            legalKey = board.getZobristKey();
         }
-        return newBoard;
+        return legalTargets;
     }
 
-    private void executeMove(ChessBoard targetBoard, ChessMove move) {
-        ChessPiece piece = targetBoard.getPiece(move.getStartPosition());
-        targetBoard.addPiece(move.getStartPosition(), null);
-        if (move.getPromotionPiece() != null) {
-            piece = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
-        }
-        targetBoard.addPiece(move.getEndPosition(), piece);
+    private void invalidateLegalMoves() {
+        legalTargets = null;
     }
 
-    private boolean hasAnyValidMoves(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (pieceHasValidMoves(piece, position, teamColor)) {
-                    return true;
-                }
+    private static boolean hasAnyTargets(long[] targets) {
+        for (long t : targets) {
+            if (t != 0) {
+                return true;
             }
         }
         return false;
     }
 
-    private boolean pieceHasValidMoves(ChessPiece piece, ChessPosition position,
-                                       TeamColor teamColor) {
-        if (piece == null || piece.getTeamColor() != teamColor) {
-            return false;
-        }
-        Collection<ChessMove> moves = validMoves(position);
-        return moves != null && !moves.isEmpty();
+    private boolean isOnBoard(ChessPosition position) {
+        return position != null && Bitboards.isValid(position.getRow(), position.getColumn());
     }
 
+    /**
+     * @return True if the game was ended, for example by a resignation, or has
+     * been drawn by repetition or the fifty-move rule
+     */
     public boolean isGameOver() {
-        return gameOver;
+        return gameOver || isThreefoldRepetition() || isFiftyMoveDraw();
     }
 
     public void setGameOver(boolean gameOver) {
@@ -345,11 +437,17 @@ public class ChessGame {
             return false;
         }
         ChessGame game = (ChessGame) o;
-        return gameOver == game.gameOver && Objects.equals(board, game.board) && currentTurn == game.currentTurn;
+        return gameOver == game.gameOver && Objects.equals(board, game.board)
+                && getTeamTurn() == game.getTeamTurn();
     }
 
+    /**
+     * Games compare equal on placement, turn and gameOver alone, so the hash is
+     * built from those and not from the full Zobrist key, which also covers
+     * castling rights and the en passant file.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(board, currentTurn,gameOver);
+        return (board.hashCode() * 31 + getTeamTurn().ordinal()) * 31 + Boolean.hashCode(gameOver);
     }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
+    /** Slots per from/to pair: no promotion, then one per piece type. */
+    private static final int PROMOTION_SLOTS = ChessPiece.PieceType.values().length + 1;
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_SLOTS];
 
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
@@ -21,6 +24,36 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Returns a shared instance for the move. Moves are immutable and built the
+     * first time each one is asked for. Positions off the board get a new
+     * instance, exactly as the constructor would give.
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece);
+    }
+
+    /** @return the shared instance for a move between two 0–63 square indexes */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        int slot = (from * 64 + to) * PROMOTION_SLOTS + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
+        ChessMove move = MOVES[slot];
+        if (move == null) {
+            // Racing threads may each build the move; the copies are equal and
+            // safely published through the final fields, so either one may win.
+            move = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), promotionPiece);
+            MOVES[slot] = move;
+        }
+        return move;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return Bitboards.isValid(position.getRow(), position.getColumn());
+    }
+
     /**
      * @return starting location
      */
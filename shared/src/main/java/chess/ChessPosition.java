@@ -7,6 +7,14 @@ package chess;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            SQUARES[sq] = new ChessPosition(sq / 8 + 1, sq % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -16,6 +24,26 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Returns the shared instance for a square. Positions are immutable, so one
+     * instance per square serves every caller. Coordinates off the board get a
+     * new instance, exactly as the constructor would give.
+     *
+     * @param row    1–8, counted from the bottom
+     * @param col    1–8, counted from the left
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /** @return the shared instance for a 0–63 square index */
+    static ChessPosition of(int sq) {
+        return SQUARES[sq];
+    }
+
     /** @return which row this position is in (1 = bottom row) */
     public int getRow() {
         return row; }
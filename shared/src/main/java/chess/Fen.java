@@ -0,0 +1,277 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth–Edwards Notation, for example the start
+ * position {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * Both directions make one pass over the text and place pieces straight onto
+ * the board, with no intermediate arrays, lists or substrings.
+ */
+final class Fen {
+    /** FEN letter of each piece, indexed by {@link ChessBoard#pieceIndex}. */
+    private static final String PIECE_LETTERS = "KQBNRPkqbnrp";
+    private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+    private Fen() {
+    }
+
+    /**
+     * @param fen the six FEN fields; the halfmove clock and fullmove number may
+     *            be left off
+     * @return a new game holding the position
+     * @throws IllegalArgumentException if the text is not a valid FEN position,
+     *                                  or not a position that could arise in a game
+     */
+    static ChessGame parse(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        int row = 7;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw invalid(fen, "rank " + (row + 1) + " does not have eight squares");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int index = PIECE_LETTERS.indexOf(c);
+                if (index < 0) {
+                    throw invalid(fen, "unknown piece '" + c + "'");
+                }
+                if (col < 8) {
+                    board.addPiece(ChessPosition.of(row * 8 + col), ChessPiece.fromIndex(index));
+                }
+                col++;
+            }
+            if (col > 8) {
+                throw invalid(fen, "rank " + (row + 1) + " has more than eight squares");
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw invalid(fen, "the board does not have eight full ranks");
+        }
+
+        i = skipSpaces(fen, i);
+        ChessGame.TeamColor toMove;
+        char side = i < length ? fen.charAt(i++) : ' ';
+        if (side == 'w') {
+            toMove = ChessGame.TeamColor.WHITE;
+        } else if (side == 'b') {
+            toMove = ChessGame.TeamColor.BLACK;
+        } else {
+            throw invalid(fen, "the side to move must be 'w' or 'b'");
+        }
+
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                rights |= switch (fen.charAt(i)) {
+                    case 'K' -> ChessBoard.WHITE_KINGSIDE;
+                    case 'Q' -> ChessBoard.WHITE_QUEENSIDE;
+                    case 'k' -> ChessBoard.BLACK_KINGSIDE;
+                    case 'q' -> ChessBoard.BLACK_QUEENSIDE;
+                    default -> throw invalid(fen, "unknown castling right '" + fen.charAt(i) + "'");
+                };
+            }
+        }
+        board.setCastlingRights(rights);
+
+        i = skipSpaces(fen, i);
+        int enPassantFile = -1;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i + 1 < length) {
+            char file = fen.charAt(i);
+            char rank = fen.charAt(i + 1);
+            if (file < 'a' || file > 'h' || rank != (toMove == ChessGame.TeamColor.WHITE ? '6' : '3')) {
+                throw invalid(fen, "bad en passant square");
+            }
+            enPassantFile = file - 'a';
+            i += 2;
+        } else {
+            throw invalid(fen, "missing en passant square");
+        }
+
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int halfmoveClock = 0;
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                halfmoveClock = appendDigit(fen, halfmoveClock, i);
+            }
+            board.setHalfmoveClock(halfmoveClock);
+            i = skipSpaces(fen, i);
+            if (i < length) {
+                int fullmoveNumber = 0;
+                for (; i < length && fen.charAt(i) != ' '; i++) {
+                    fullmoveNumber = appendDigit(fen, fullmoveNumber, i);
+                }
+                board.setFullmoveNumber(Math.max(1, fullmoveNumber));
+            }
+            if (skipSpaces(fen, i) != length) {
+                throw invalid(fen, "unexpected text after the move counters");
+            }
+        }
+
+        checkReachable(fen, board, toMove);
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(toMove);
+        if (enPassantFile >= 0 && canCaptureEnPassant(board, enPassantFile, toMove)) {
+            board.setEnPassantFile(enPassantFile);
+        }
+        return game;
+    }
+
+    /**
+     * Rejects material no game can reach and a side to move that could take
+     * the other king, so that the search and its fixed-size move lists only
+     * ever see positions from real games.
+     */
+    private static void checkReachable(CharSequence fen, ChessBoard board, ChessGame.TeamColor toMove) {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            String side = color == ChessGame.TeamColor.WHITE ? "white" : "black";
+            if (Long.bitCount(board.getBitboard(color, ChessPiece.PieceType.KING)) != 1) {
+                throw invalid(fen, side + " must have exactly one king");
+            }
+            long pawns = board.getBitboard(color, ChessPiece.PieceType.PAWN);
+            if ((pawns & BACK_RANKS) != 0) {
+                throw invalid(fen, side + " has a pawn on the first or last rank");
+            }
+            if (Long.bitCount(pawns) > 8 || Long.bitCount(board.getOccupancy(color)) > 16) {
+                throw invalid(fen, side + " has more than 16 pieces or 8 pawns");
+            }
+        }
+        ChessGame.TeamColor waiting = toMove == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        if (board.isInCheck(waiting)) {
+            throw invalid(fen, "the side not to move is in check");
+        }
+    }
+
+    /** @return the position of the game in FEN */
+    static String format(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int index = board.pieceIndexAt(row * 8 + col);
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(index));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(board.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = usableCastlingRights(board);
+        if (rights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, rights, ChessBoard.WHITE_KINGSIDE, 'K');
+            appendIf(fen, rights, ChessBoard.WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, rights, ChessBoard.BLACK_KINGSIDE, 'k');
+            appendIf(fen, rights, ChessBoard.BLACK_QUEENSIDE, 'q');
+        }
+
+        int enPassant = board.enPassantSquare();
+        if (enPassant < 0) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+
+        return fen.append(' ').append(board.getHalfmoveClock())
+                .append(' ').append(board.getFullmoveNumber())
+                .toString();
+    }
+
+    /**
+     * A board keeps a castling right until the king or rook moves, even while
+     * one of them is missing, so only the rights that could still be used are
+     * written out.
+     */
+    private static int usableCastlingRights(ChessBoard board) {
+        int rights = board.getCastlingRights();
+        int usable = 0;
+        for (int color = 0; color < 2; color++) {
+            int home = color == 0 ? 4 : 60;
+            int king = color * 6 + ChessPiece.PieceType.KING.ordinal();
+            int rook = color * 6 + ChessPiece.PieceType.ROOK.ordinal();
+            if (board.pieceIndexAt(home) != king) {
+                continue;
+            }
+            int kingside = ChessBoard.WHITE_KINGSIDE << (color * 2);
+            int queenside = ChessBoard.WHITE_QUEENSIDE << (color * 2);
+            if ((rights & kingside) != 0 && board.pieceIndexAt(home + 3) == rook) {
+                usable |= kingside;
+            }
+            if ((rights & queenside) != 0 && board.pieceIndexAt(home - 4) == rook) {
+                usable |= queenside;
+            }
+        }
+        return usable;
+    }
+
+    /**
+     * The board only records an en passant file when a pawn can make the
+     * capture, so that positions reached by play and positions read from FEN
+     * hash the same.
+     */
+    private static boolean canCaptureEnPassant(ChessBoard board, int file, ChessGame.TeamColor toMove) {
+        int target = file + (toMove == ChessGame.TeamColor.WHITE ? 40 : 16);
+        int them = 1 - toMove.ordinal();
+        return (Bitboards.PAWN_ATTACKS[them][target] & board.getBitboard(toMove, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    private static void appendIf(StringBuilder fen, int rights, int right, char letter) {
+        if ((rights & right) != 0) {
+            fen.append(letter);
+        }
+    }
+
+    private static int skipSpaces(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /** @return the counter read so far with the digit at {@code i} appended */
+    private static int appendDigit(CharSequence fen, int value, int i) {
+        char c = fen.charAt(i);
+        if (c < '0' || c > '9') {
+            throw invalid(fen, "move counters must be numbers");
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(value, 10), c - '0');
+        } catch (ArithmeticException e) {
+            throw invalid(fen, "move counter is too large");
+        }
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"" + fen + "\": " + reason);
+    }
+}
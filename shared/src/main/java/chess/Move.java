@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * Packs a move into the low 16 bits of an {@code int} so that move lists and
+ * search code never have to allocate a {@link ChessMove}.
+ * <p>
+ * Bits 0–5 hold the start square, bits 6–11 the end square and bits 12–15 a
+ * flag. Squares are numbered 0–63 with a1 = 0 and h8 = 63. Flags 1–4 mark a
+ * promotion, and the flag is then the ordinal of the promotion
+ * {@link ChessPiece.PieceType}. {@link #FLAG_EN_PASSANT} and
+ * {@link #FLAG_CASTLE} mark the two special moves; a castling move is encoded as
+ * the king's move.
+ */
+public final class Move {
+    /** Not a move: no legal move goes from a square to the same square. */
+    public static final int NONE = 0;
+
+    public static final int FLAG_NORMAL = 0;
+    public static final int FLAG_EN_PASSANT = 5;
+    public static final int FLAG_CASTLE = 6;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    /** @return the encoded move */
+    public static int encode(int from, int to, int flag) {
+        return from | to << 6 | flag << 12;
+    }
+
+    /** @return the encoded move, with a null promotion meaning none */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        return encode(from, to, promotion == null ? FLAG_NORMAL : promotion.ordinal());
+    }
+
+    /**
+     * @return the encoding of an object move. It carries no special-move flag,
+     * as telling a castle or an en passant capture apart needs the board; use
+     * {@link ChessBoard#encode(ChessMove)} for that.
+     */
+    public static int encode(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    /** @return the piece type a pawn promotes to, or null if the move is not a promotion */
+    public static ChessPiece.PieceType promotion(int move) {
+        int flag = flag(move);
+        return flag >= 1 && flag <= 4 ? TYPES[flag] : null;
+    }
+
+    /** @return the shared {@link ChessMove} instance for an encoded move */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /** @return the move in coordinate notation, such as {@code e7e8q} */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5)
+                .append((char) ('a' + (from(move) & 7))).append((char) ('1' + (from(move) >>> 3)))
+                .append((char) ('a' + (to(move) & 7))).append((char) ('1' + (to(move) >>> 3)));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                default -> 'n';
+            });
+        }
+        return text.toString();
+    }
+}
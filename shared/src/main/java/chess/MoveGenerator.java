@@ -0,0 +1,271 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Generates strictly legal moves for one team in a position.
+ * <p>
+ * The pieces giving check and the pieces pinned against the team's king are
+ * worked out once when the generator is created. Every target set it hands out
+ * already excludes moves that would leave the king attacked, so no move has to
+ * be played out and tested afterwards.
+ */
+final class MoveGenerator {
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor color;
+    private final ChessGame.TeamColor opponent;
+    private final int us;
+    private final int them;
+    private final int king;
+    private final long own;
+    private final long enemy;
+    private final long occupied;
+    private final long checkers;
+    private final long pinned;
+    private final long checkMask;
+
+    MoveGenerator(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.color = color;
+        opponent = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        us = color.ordinal();
+        them = opponent.ordinal();
+        king = board.kingSquare(color);
+        own = board.getOccupancy(color);
+        enemy = board.getOccupancy(opponent);
+        occupied = own | enemy;
+
+        if (king < 0) {
+            checkers = 0L;
+            pinned = 0L;
+            checkMask = ~0L;
+            return;
+        }
+        checkers = board.attackersOf(king, opponent, occupied);
+        pinned = findPinned();
+        if (checkers == 0) {
+            checkMask = ~0L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+        } else {
+            checkMask = 0L;
+        }
+    }
+
+    /** @return true if the team's king is attacked */
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * @return the legal target squares of the team's piece standing on {@code from}
+     */
+    long targets(int from) {
+        int index = board.pieceIndexAt(from);
+        ChessPiece.PieceType type = ChessPiece.fromIndex(index).getPieceType();
+        if (type == ChessPiece.PieceType.KING) {
+            long attacked = enemyAttacks();
+            long targets = Bitboards.KING_ATTACKS[from] & ~own & ~attacked;
+            return checkers == 0 ? targets | castlingTargets(from, attacked) : targets;
+        }
+        long targets = type == ChessPiece.PieceType.PAWN
+                ? Bitboards.pawnTargets(us, from, occupied, enemy)
+                : Bitboards.attacks(type, us, from, occupied) & ~own;
+        targets &= checkMask;
+        if ((pinned & Bitboards.bit(from)) != 0) {
+            targets &= Bitboards.LINE[king][from];
+        }
+        if (type == ChessPiece.PieceType.PAWN && color == board.getTeamTurn()) {
+            targets |= enPassantTarget(from);
+        }
+        return targets;
+    }
+
+    /** Adds every legal move of the team's piece on {@code from} to {@code moves}. */
+    void addMoves(int from, MoveList moves) {
+        addMoves(moves, board, from, targets(from));
+    }
+
+    /**
+     * Stores the legal targets of every piece of the team in {@code targets},
+     * indexed by the square the piece stands on; squares without one of the
+     * team's pieces get no targets.
+     */
+    void fillTargets(long[] targets) {
+        Arrays.fill(targets, 0L);
+        long pieces = own;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            targets[from] = targets(from);
+        }
+    }
+
+    /** @return true if a move to {@code to} by the piece on {@code from} must promote */
+    static boolean isPromotion(ChessBoard board, int from, int to) {
+        return board.pieceIndexAt(from) % 6 == ChessPiece.PieceType.PAWN.ordinal()
+                && (Bitboards.bit(to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0;
+    }
+
+    /** Adds every legal move of the team to {@code moves}. */
+    void generate(MoveList moves) {
+        long pieces = own;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            addMoves(from, moves);
+        }
+    }
+
+    /** Adds the team's legal captures, en passant captures and promotions to {@code moves}. */
+    void generateCaptures(MoveList moves) {
+        long pieces = own;
+        long pawns = board.getBitboard(color, ChessPiece.PieceType.PAWN);
+        int enPassant = board.enPassantSquare();
+        long pawnTargets = enemy | Bitboards.RANK_1 | Bitboards.RANK_8
+                | (enPassant < 0 ? 0L : Bitboards.bit(enPassant));
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long mask = (pawns & Bitboards.bit(from)) != 0 ? pawnTargets : enemy;
+            long targets = targets(from) & mask;
+            if (targets != 0) {
+                addMoves(moves, board, from, targets);
+            }
+        }
+    }
+
+    /** @return true if the team has at least one legal move */
+    boolean hasAnyMoves() {
+        long pieces = own;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (targets(from) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts the target bitboard of the piece on {@code from} into moves,
+     * expanding pawn moves onto the last rank into one move per promotion piece
+     * and flagging castles and en passant captures.
+     */
+    static void addMoves(MoveList moves, ChessBoard board, int from, long targets) {
+        int type = board.pieceIndexAt(from) % 6;
+        if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+            int enPassant = board.enPassantSquare();
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if ((Bitboards.bit(to) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+                    moves.add(Move.encode(from, to, ChessPiece.PieceType.QUEEN));
+                    moves.add(Move.encode(from, to, ChessPiece.PieceType.ROOK));
+                    moves.add(Move.encode(from, to, ChessPiece.PieceType.BISHOP));
+                    moves.add(Move.encode(from, to, ChessPiece.PieceType.KNIGHT));
+                } else {
+                    moves.add(Move.encode(from, to, to == enPassant ? Move.FLAG_EN_PASSANT : Move.FLAG_NORMAL));
+                }
+            }
+            return;
+        }
+        boolean king = type == ChessPiece.PieceType.KING.ordinal();
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            boolean castle = king && Math.abs(to - from) == 2;
+            moves.add(Move.encode(from, to, castle ? Move.FLAG_CASTLE : Move.FLAG_NORMAL));
+        }
+    }
+
+    /**
+     * @return the squares the king on {@code from} can castle to. The caller has
+     * already made sure the king is not in check.
+     *
+     * @param attacked every square the enemy attacks
+     */
+    private long castlingTargets(int from, long attacked) {
+        int home = us == 0 ? 4 : 60;
+        int rights = (board.getCastlingRights() >>> (us * 2)) & 3;
+        if (from != home || rights == 0) {
+            return 0L;
+        }
+        long rooks = board.getBitboard(color, ChessPiece.PieceType.ROOK);
+        long targets = 0L;
+        if ((rights & ChessBoard.WHITE_KINGSIDE) != 0 && (rooks & Bitboards.bit(home + 3)) != 0
+                && (occupied & Bitboards.BETWEEN[home][home + 3]) == 0
+                && (attacked & Bitboards.BETWEEN[home][home + 3]) == 0) {
+            targets |= Bitboards.bit(home + 2);
+        }
+        if ((rights & ChessBoard.WHITE_QUEENSIDE) != 0 && (rooks & Bitboards.bit(home - 4)) != 0
+                && (occupied & Bitboards.BETWEEN[home][home - 4]) == 0
+                && (attacked & Bitboards.BETWEEN[home][home - 3]) == 0) {
+            targets |= Bitboards.bit(home - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * @return the en passant square if the pawn on {@code from} can legally
+     * capture onto it. The capture empties two squares on one rank at once, so
+     * it is tested by looking for attackers of the king in the position after
+     * the capture rather than through the pin and check masks.
+     */
+    private long enPassantTarget(int from) {
+        int to = board.enPassantSquare();
+        if (to < 0 || (Bitboards.PAWN_ATTACKS[us][from] & Bitboards.bit(to)) == 0) {
+            return 0L;
+        }
+        if (king < 0) {
+            return Bitboards.bit(to);
+        }
+        long victim = Bitboards.bit((from & ~7) | (to & 7));
+        long after = (occupied ^ Bitboards.bit(from) ^ victim) | Bitboards.bit(to);
+        return (board.attackersOf(king, opponent, after) & ~victim) == 0 ? Bitboards.bit(to) : 0L;
+    }
+
+    /**
+     * @return our pieces that are the only blocker between an enemy slider and
+     * our king
+     */
+    private long findPinned() {
+        long queens = board.getBitboard(opponent, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, enemy)
+                & (board.getBitboard(opponent, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(king, enemy)
+                & (board.getBitboard(opponent, ChessPiece.PieceType.BISHOP) | queens));
+        long result = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.BETWEEN[king][sniper] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                result |= blockers & own;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every square the enemy attacks, with our king lifted off the board
+     * so that it cannot hide behind itself along a checking ray
+     */
+    private long enemyAttacks() {
+        long occupancy = occupied & ~Bitboards.bit(king);
+        long attacks = 0L;
+        for (ChessPiece.PieceType type : TYPES) {
+            long pieces = board.getBitboard(opponent, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                attacks |= Bitboards.attacks(type, them, from, occupancy);
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable list of {@link Move encoded moves} backed by a plain {@code int}
+ * array. Clearing it keeps the array, so one list per search ply serves a whole
+ * search without allocating.
+ */
+public final class MoveList {
+    /** No chess position has more than 218 legal moves. */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves;
+    private int size;
+
+    /** Creates a list large enough for every legal move of any position. */
+    public MoveList() {
+        this(CAPACITY);
+    }
+
+    /** Creates a list for a known smaller bound, such as the moves of one piece. */
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the moves as shared {@link ChessMove} instances, in list order */
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
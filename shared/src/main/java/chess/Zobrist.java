@@ -0,0 +1,58 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per
+ * piece on its square, a key for black to move, a key for the castling rights
+ * and a key for the en passant file, so a move updates it with a handful of
+ * XORs instead of a pass over the board.
+ * <p>
+ * The keys come from a fixed seed, so the same position hashes to the same key
+ * in every JVM and keys can be stored and compared across runs.
+ */
+final class Zobrist {
+    /** Keys indexed [piece index][square]. */
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    /** Keys indexed by the castling-rights bits of {@link ChessBoard}. */
+    static final long[] CASTLING = new long[16];
+    /** Keys indexed by the file of the en passant square. */
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long[] seed = {0x2E7A5C3B19D04F61L};
+        for (long[] keys : PIECE_SQUARE) {
+            for (int sq = 0; sq < 64; sq++) {
+                keys[sq] = next(seed);
+            }
+        }
+        BLACK_TO_MOVE = next(seed);
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = next(seed);
+        }
+        for (int file = 0; file < EN_PASSANT_FILE.length; file++) {
+            EN_PASSANT_FILE[file] = next(seed);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /** @return the key for the given side to move */
+    static long side(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0L;
+    }
+
+    /** @return the key for an en passant file, where -1 means none */
+    static long enPassant(int file) {
+        return file < 0 ? 0L : EN_PASSANT_FILE[file];
+    }
+
+    private static long next(long[] seed) {
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+}
@@ -0,0 +1,177 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * The material signatures that have endgame tablebases: a king and one or two
+ * pieces against a lone king. The side with the pieces is called the strong
+ * side.
+ * <p>
+ * A table holds one byte per position, indexed by the side to move and the
+ * squares of the strong king, the weak king and the strong pieces, all seen
+ * with the strong side as white. Positions that are mirror images of each
+ * other share one index: the strong king is reflected into the a1–d1–d4
+ * triangle, or onto files a–d when there is a pawn, which can only be
+ * mirrored left to right. Of the reflections that put the king there, the one
+ * with the smallest index is the position's canonical index; the other
+ * indexes stay unused.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+    final ChessPiece.PieceType[] pieces;
+    private final int[] kingSlots;
+    private final int[] kingSquares;
+    private final int transforms;
+    /** The number of indexes, both sides to move; the strong side is to move in the first half. */
+    final int size;
+
+    Endgame(ChessPiece.PieceType... pieces) {
+        boolean pawns = pieces[0] == ChessPiece.PieceType.PAWN;
+        this.pieces = pieces;
+        this.kingSlots = pawns ? KingSlots.HALF_BOARD_SLOTS : KingSlots.TRIANGLE_SLOTS;
+        this.kingSquares = pawns ? KingSlots.HALF_BOARD_SQUARES : KingSlots.TRIANGLE_SQUARES;
+        this.transforms = pawns ? 2 : 8;
+        this.size = 2 * kingSquares.length << 6 * (1 + pieces.length);
+    }
+
+    /** @return the name of the table's file */
+    String fileName() {
+        return name() + ".tb";
+    }
+
+    /** @return the endgame of the board with the given strong side, or null if it has none */
+    static Endgame of(ChessBoard board, ChessGame.TeamColor strong) {
+        for (Endgame endgame : values()) {
+            if (endgame.matches(board, strong)) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(ChessBoard board, ChessGame.TeamColor strong) {
+        if (Long.bitCount(board.getOccupancy(strong)) != 1 + pieces.length
+                || Long.bitCount(board.getBitboard(strong, ChessPiece.PieceType.KING)) != 1) {
+            return false;
+        }
+        for (ChessPiece.PieceType piece : pieces) {
+            if (Long.bitCount(board.getBitboard(strong, piece)) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param piece2 square of the second strong piece, ignored when there is none
+     * @return the canonical index of the position, with every square seen with
+     * the strong side as white
+     */
+    int index(boolean strongToMove, int strongKing, int weakKing, int piece1, int piece2) {
+        int best = Integer.MAX_VALUE;
+        for (int t = 0; t < transforms; t++) {
+            int slot = kingSlots[transform(strongKing, t)];
+            if (slot >= 0) {
+                int index = ((strongToMove ? 0 : kingSquares.length) + slot) << 6 | transform(weakKing, t);
+                index = index << 6 | transform(piece1, t);
+                if (pieces.length == 2) {
+                    index = index << 6 | transform(piece2, t);
+                }
+                best = Math.min(best, index);
+            }
+        }
+        return best;
+    }
+
+    /** @return the canonical index of the board's position */
+    int index(ChessBoard board, ChessGame.TeamColor strong) {
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        // Seen from black, the board is turned upside down so that pawns still move up
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        return index(board.getTeamTurn() == strong,
+                square(board, strong, ChessPiece.PieceType.KING) ^ flip,
+                square(board, weak, ChessPiece.PieceType.KING) ^ flip,
+                square(board, strong, pieces[0]) ^ flip,
+                pieces.length == 2 ? square(board, strong, pieces[1]) ^ flip : 0);
+    }
+
+    /**
+     * Fills in the squares of an index: the strong king, the weak king and
+     * then the strong pieces.
+     *
+     * @return true if the strong side is to move
+     */
+    boolean decode(int index, int[] squares) {
+        for (int i = pieces.length - 1; i >= 0; i--) {
+            squares[2 + i] = index & 0x3F;
+            index >>>= 6;
+        }
+        squares[1] = index & 0x3F;
+        index >>>= 6;
+        squares[0] = kingSquares[index % kingSquares.length];
+        return index < kingSquares.length;
+    }
+
+    /** @return true if a piece may stand on the square: pawns never stand on the first or last rank */
+    static boolean allows(ChessPiece.PieceType piece, int sq) {
+        return piece != ChessPiece.PieceType.PAWN || sq >= 8 && sq < 56;
+    }
+
+    private static int square(ChessBoard board, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return Long.numberOfTrailingZeros(board.getBitboard(color, type));
+    }
+
+    /** @return the square under the t-th reflection of the board */
+    private static int transform(int sq, int t) {
+        int file = sq & 7;
+        int rank = sq >>> 3;
+        if ((t & 4) != 0) {
+            int swap = file;
+            file = rank;
+            rank = swap;
+        }
+        if ((t & 1) != 0) {
+            file = 7 - file;
+        }
+        if ((t & 2) != 0) {
+            rank = 7 - rank;
+        }
+        return rank << 3 | file;
+    }
+
+    /** The strong king's squares, held apart because an enum's constructors cannot see its statics. */
+    private static final class KingSlots {
+        /** Squares in the a1–d1–d4 triangle and on files a–d, numbered from 0, or -1. */
+        static final int[] TRIANGLE_SLOTS = new int[64];
+        static final int[] HALF_BOARD_SLOTS = new int[64];
+        /** The squares of those slots, by slot. */
+        static final int[] TRIANGLE_SQUARES = new int[10];
+        static final int[] HALF_BOARD_SQUARES = new int[32];
+
+        static {
+            int triangle = 0;
+            int half = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                int file = sq & 7;
+                int rank = sq >>> 3;
+                TRIANGLE_SLOTS[sq] = -1;
+                HALF_BOARD_SLOTS[sq] = -1;
+                if (file <= 3 && rank <= file) {
+                    TRIANGLE_SQUARES[triangle] = sq;
+                    TRIANGLE_SLOTS[sq] = triangle++;
+                }
+                if (file <= 3) {
+                    HALF_BOARD_SQUARES[half] = sq;
+                    HALF_BOARD_SLOTS[sq] = half++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A chess engine that picks moves for a {@link ChessGame} by iterative
+ * deepening alpha-beta search within a time or node budget.
+ * <p>
+ * With more than one thread the engine runs a Lazy SMP search: every thread
+ * searches the same position, sharing only the lock-free transposition table,
+ * and the main thread's result is reported with the nodes of all threads.
+ * <p>
+ * An engine keeps its transposition table and move ordering statistics between
+ * searches, which helps when it searches successive positions of one game.
+ * Call {@link #newGame()} before switching to an unrelated game. Given
+ * {@link Tablebases}, the engine answers covered positions from them at once
+ * and cuts the search off wherever it reaches one. An engine runs
+ * one search at a time; {@link #stop()} may be called from any thread, and a
+ * {@link SearchControl} steers one particular search, including pondering.
+ * Close the engine to release its helper threads.
+ */
+public final class Engine implements AutoCloseable {
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final SearchWorker[] workers;
+    private final ExecutorService helpers;
+    private final List<Future<SearchResult>> helperResults = new ArrayList<>();
+    private volatile boolean stopRequested;
+    private volatile SearchControl control;
+    private volatile Tablebases tablebases;
+    private long deadline;
+
+    public Engine() {
+        this(DEFAULT_HASH_MEGABYTES, 1);
+    }
+
+    /** @param hashMegabytes size of the transposition table */
+    public Engine(int hashMegabytes) {
+        this(hashMegabytes, 1);
+    }
+
+    /**
+     * @param hashMegabytes size of the transposition table. The table lives in
+     *                      direct memory, so sizes beyond the JVM's default
+     *                      direct memory limit need {@code -XX:MaxDirectMemorySize}.
+     * @param threads       number of search threads, including the caller's
+     */
+    public Engine(int hashMegabytes, int threads) {
+        if (hashMegabytes < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("An engine needs at least one thread");
+        }
+        table = new TranspositionTable(hashMegabytes);
+        workers = new SearchWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchWorker(this, table, i);
+        }
+        helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "engine-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches the game's current position. The game itself is not modified.
+     *
+     * @return the best move found and search statistics
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, new SearchControl());
+    }
+
+    /**
+     * Searches the game's current position under the given control, which may
+     * stop the search or hold back its time limit while pondering. The game
+     * itself is not modified.
+     *
+     * @return the best move found and search statistics
+     */
+    public synchronized SearchResult search(ChessGame game, SearchLimits limits, SearchControl control) {
+        long start = System.nanoTime();
+        ChessBoard root = new ChessBoard(game.getBoard());
+        long[] played = game.getRepetitionKeys();
+        Tablebases known = tablebases;
+        SearchResult solved = known == null ? null : known.solve(root);
+        if (solved != null) {
+            return solved;
+        }
+        stopRequested = false;
+        this.control = control;
+        deadline = limits.millis() == 0 ? Long.MAX_VALUE : start + limits.millis() * 1_000_000L;
+        table.newSearch();
+
+        helperResults.clear();
+        for (int i = 1; i < workers.length; i++) {
+            SearchWorker helper = workers[i];
+            helperResults.add(helpers.submit(() -> helper.search(root, played, limits, start)));
+        }
+        SearchResult main = workers[0].search(root, played, limits, start);
+
+        // The helpers only feed the table, so they stop as soon as the main thread is done
+        stopRequested = true;
+        long nodes = main.nodes();
+        for (Future<SearchResult> result : helperResults) {
+            nodes += awaitHelper(result).nodes();
+        }
+        this.control = null;
+        return new SearchResult(main.bestMove(), main.score(), main.depth(), nodes, System.nanoTime() - start,
+                main.principalVariation());
+    }
+
+    /** Asks a running search to return its best move so far as soon as possible. */
+    public void stop() {
+        SearchControl current = control;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /** Clears everything learned from earlier searches, including the transposition table. */
+    public synchronized void newGame() {
+        table.clear();
+        for (SearchWorker worker : workers) {
+            worker.clear();
+        }
+    }
+
+    /** @param tablebases endgame tables to play from and search with, or null for none */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /** @return the number of search threads, including the caller's */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    boolean isStopRequested() {
+        SearchControl current = control;
+        return stopRequested || current != null && current.isStopped();
+    }
+
+    Tablebases tablebases() {
+        return tablebases;
+    }
+
+    /** @return when the running search must stop, in {@link System#nanoTime()} terms */
+    long deadline() {
+        SearchControl current = control;
+        return current != null && current.isPondering() ? Long.MAX_VALUE : deadline;
+    }
+
+    private static SearchResult awaitHelper(Future<SearchResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for search threads", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation of a position in centipawns from the side to move's point
+ * of view: material plus piece-square bonuses, tapered between a middlegame
+ * and an endgame score by how much non-pawn material is left.
+ * <p>
+ * Every term is a sum over pieces of a value that depends only on the piece
+ * and its square, so a move changes the score by a few table lookups.
+ * {@link Evaluator} keeps the score up to date that way during a search;
+ * {@link #evaluate(ChessBoard)} scans the whole board and serves as the
+ * reference.
+ */
+public final class Evaluation {
+    /** Centipawn value of each piece type for move ordering, indexed by {@link ChessPiece.PieceType} ordinal. */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    /** The phase of a game with all pieces on the board; 0 is a bare pawn ending. */
+    static final int MAX_PHASE = 24;
+    /** Phase each piece type contributes, indexed by {@link ChessPiece.PieceType} ordinal. */
+    static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    private static final int[] MIDDLEGAME_VALUES = {0, 1025, 365, 337, 477, 82};
+    private static final int[] ENDGAME_VALUES = {0, 936, 297, 281, 512, 94};
+
+    /*
+     * Piece-square bonuses for white, written as the board is drawn: the first
+     * row is rank 8. Black uses the same tables mirrored top to bottom.
+     */
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    /*
+     * Material plus bonus of each piece on each square, indexed [piece][square]
+     * with the piece index color * 6 + type. Black's entries are negative, so a
+     * position's score is the plain sum over its pieces, from white's view.
+     */
+    static final int[][] MIDDLEGAME = new int[12][64];
+    static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (int type = 0; type < 6; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                // The tables list rank 8 first, so white's square is mirrored into them
+                MIDDLEGAME[type][sq] = MIDDLEGAME_VALUES[type] + middlegameTables[type][sq ^ 56];
+                ENDGAME[type][sq] = ENDGAME_VALUES[type] + endgameTables[type][sq ^ 56];
+                MIDDLEGAME[6 + type][sq] = -(MIDDLEGAME_VALUES[type] + middlegameTables[type][sq]);
+                ENDGAME[6 + type][sq] = -(ENDGAME_VALUES[type] + endgameTables[type][sq]);
+            }
+        }
+    }
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Evaluation() {
+    }
+
+    /**
+     * Evaluates a position by scanning every piece on the board.
+     *
+     * @return the score in centipawns from the side to move's point of view
+     */
+    public static int evaluate(ChessBoard board) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : TYPES) {
+                int piece = color.ordinal() * 6 + type.ordinal();
+                long pieces = board.getBitboard(color, type);
+                while (pieces != 0) {
+                    int sq = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    middlegame += MIDDLEGAME[piece][sq];
+                    endgame += ENDGAME[piece][sq];
+                    phase += PHASE_WEIGHTS[type.ordinal()];
+                }
+            }
+        }
+        return taper(middlegame, endgame, phase, board.getTeamTurn());
+    }
+
+    /**
+     * Blends the two scores by game phase and turns the result to the side to
+     * move's point of view.
+     */
+    static int taper(int middlegame, int endgame, int phase, ChessGame.TeamColor toMove) {
+        int weight = Math.min(phase, MAX_PHASE);
+        int score = (middlegame * weight + endgame * (MAX_PHASE - weight)) / MAX_PHASE;
+        return toMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,128 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+
+/**
+ * Keeps the {@link Evaluation} of a board up to date as moves are made and
+ * unmade, so that evaluating a position costs a few arithmetic operations
+ * instead of a scan of the board.
+ * <p>
+ * The evaluator holds one set of running sums per ply. {@link #makeMove} must
+ * be called before the move is played on the board, since it reads the moving
+ * and captured pieces from it, and {@link #unmakeMove} after the move is taken
+ * back; unmaking just steps back to the sums saved for the previous ply.
+ * <pre>{@code
+ * evaluator.makeMove(board, move);
+ * long undo = board.makeMove(move);
+ * int score = evaluator.evaluate(board.getTeamTurn());
+ * board.unmakeMove(undo);
+ * evaluator.unmakeMove();
+ * }</pre>
+ */
+public final class Evaluator {
+    private final int[] middlegame;
+    private final int[] endgame;
+    private final int[] phase;
+    private int ply;
+
+    /** @param maxPly the deepest line of moves the evaluator will follow */
+    public Evaluator(int maxPly) {
+        middlegame = new int[maxPly + 1];
+        endgame = new int[maxPly + 1];
+        phase = new int[maxPly + 1];
+    }
+
+    /** Starts over from a position, with a full scan of the board. */
+    public void reset(ChessBoard board) {
+        ply = 0;
+        int mg = 0;
+        int eg = 0;
+        int ph = 0;
+        long pieces = board.getOccupancy();
+        while (pieces != 0) {
+            int sq = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = board.getPiece(sq);
+            int index = index(piece);
+            mg += Evaluation.MIDDLEGAME[index][sq];
+            eg += Evaluation.ENDGAME[index][sq];
+            ph += Evaluation.PHASE_WEIGHTS[piece.getPieceType().ordinal()];
+        }
+        middlegame[0] = mg;
+        endgame[0] = eg;
+        phase[0] = ph;
+    }
+
+    /**
+     * Applies a move to the running sums.
+     *
+     * @param board the position before the move is played
+     * @param move  a legal {@link Move encoded} move in that position
+     * @throws IllegalStateException if the evaluator is already at its deepest ply
+     */
+    public void makeMove(ChessBoard board, int move) {
+        if (ply + 1 >= middlegame.length) {
+            throw new IllegalStateException("Evaluator is limited to " + (middlegame.length - 1) + " plies");
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        ChessPiece piece = board.getPiece(from);
+        int moved = index(piece);
+        int color = piece.getTeamColor().ordinal();
+
+        int mg = middlegame[ply] - Evaluation.MIDDLEGAME[moved][from];
+        int eg = endgame[ply] - Evaluation.ENDGAME[moved][from];
+        int ph = phase[ply];
+
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        int placed = promotion != null ? color * 6 + promotion.ordinal() : moved;
+        mg += Evaluation.MIDDLEGAME[placed][to];
+        eg += Evaluation.ENDGAME[placed][to];
+        if (promotion != null) {
+            ph += Evaluation.PHASE_WEIGHTS[promotion.ordinal()];
+        }
+
+        int victimSquare = flag == Move.FLAG_EN_PASSANT ? (from & ~7) | (to & 7) : to;
+        ChessPiece victim = flag == Move.FLAG_CASTLE ? null : board.getPiece(victimSquare);
+        if (victim != null) {
+            int captured = index(victim);
+            mg -= Evaluation.MIDDLEGAME[captured][victimSquare];
+            eg -= Evaluation.ENDGAME[captured][victimSquare];
+            ph -= Evaluation.PHASE_WEIGHTS[victim.getPieceType().ordinal()];
+        }
+
+        if (flag == Move.FLAG_CASTLE) {
+            int rook = color * 6 + ChessPiece.PieceType.ROOK.ordinal();
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            mg += Evaluation.MIDDLEGAME[rook][rookTo] - Evaluation.MIDDLEGAME[rook][rookFrom];
+            eg += Evaluation.ENDGAME[rook][rookTo] - Evaluation.ENDGAME[rook][rookFrom];
+        }
+
+        ply++;
+        middlegame[ply] = mg;
+        endgame[ply] = eg;
+        phase[ply] = ph;
+    }
+
+    /** Returns to the sums from before the last {@link #makeMove}. */
+    public void unmakeMove() {
+        ply--;
+    }
+
+    /**
+     * @param toMove the side to move in the current position
+     * @return the same score {@link Evaluation#evaluate} gives the current position
+     */
+    public int evaluate(ChessGame.TeamColor toMove) {
+        return Evaluation.taper(middlegame[ply], endgame[ply], phase[ply], toMove);
+    }
+
+    private static int index(ChessPiece piece) {
+        return piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+    }
+}
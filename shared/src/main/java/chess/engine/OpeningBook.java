@@ -0,0 +1,171 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book, memory-mapped from a file so that it costs the
+ * heap nothing however many games went into it. The file follows the Polyglot
+ * layout: 16-byte big-endian entries sorted by key, each a 64-bit position key,
+ * a 16-bit move, a 16-bit weight and 32 unused bits. A position's moves are
+ * found by binary search on the key.
+ * <p>
+ * Moves use the Polyglot encoding: bits 0–5 the end square, bits 6–11 the
+ * start square and bits 12–14 the promotion piece (1 knight, 2 bishop, 3 rook,
+ * 4 queen), with castling encoded as the king taking its own rook. Keys,
+ * however, are this package's {@link ChessBoard#getZobristKey() Zobrist keys}
+ * rather than Polyglot's, so books are written by {@link OpeningBookBuilder}
+ * and are not interchangeable with Polyglot's own.
+ * <p>
+ * A book may be shared by any number of threads.
+ */
+public final class OpeningBook {
+    static final int ENTRY_BYTES = 16;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    /** A move of the book and how often it was played. */
+    public record Entry(int move, int weight) {
+    }
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file into memory. The mapping outlives the file's channel and
+     * is released when the book is garbage collected.
+     *
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /** @return the number of entries, one per position and move */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the book's legal moves in the position, {@link Move encoded},
+     * most played first; empty if the position is not in the book
+     */
+    public List<Entry> lookup(ChessBoard board) {
+        List<Entry> found = new ArrayList<>();
+        long key = board.getZobristKey();
+        int index = lowerBound(key);
+        if (index == size || entries.getLong(index * ENTRY_BYTES) != key) {
+            return found;
+        }
+        MoveList legal = new MoveList();
+        board.generateMoves(legal);
+        for (; index < size && entries.getLong(index * ENTRY_BYTES) == key; index++) {
+            int bookMove = Short.toUnsignedInt(entries.getShort(index * ENTRY_BYTES + 8));
+            int weight = Short.toUnsignedInt(entries.getShort(index * ENTRY_BYTES + 10));
+            // Matching against the legal moves also weeds out any key collision
+            for (int i = 0; i < legal.size(); i++) {
+                if (encode(legal.get(i)) == bookMove) {
+                    found.add(new Entry(legal.get(i), weight));
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Picks one of the book's moves in the position at random, in proportion
+     * to their weights, so that games do not all follow the same line.
+     *
+     * @return the {@link Move encoded} move, or {@link Move#NONE} if the
+     * position is not in the book
+     */
+    public int pick(ChessBoard board, RandomGenerator random) {
+        return pick(board, random, 1);
+    }
+
+    /**
+     * Picks one of the book's moves in the position as {@link #pick(ChessBoard,
+     * RandomGenerator)} does, passing over moves weighted below the minimum,
+     * so that a line seen in only a game or two is not trusted.
+     *
+     * @param minWeight the least weight, or number of games, a move needs
+     * @return the {@link Move encoded} move, or {@link Move#NONE} if the
+     * position has no move of at least that weight
+     */
+    public int pick(ChessBoard board, RandomGenerator random, int minWeight) {
+        List<Entry> moves = lookup(board);
+        moves.removeIf(entry -> entry.weight() < minWeight);
+        int total = 0;
+        for (Entry entry : moves) {
+            total += entry.weight();
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        int choice = random.nextInt(total);
+        for (Entry entry : moves) {
+            choice -= entry.weight();
+            if (choice < 0) {
+                return entry.move();
+            }
+        }
+        return Move.NONE;
+    }
+
+    /** @return the index of the first entry whose key is not less than the given key, unsigned */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(mid * ENTRY_BYTES), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** @return the Polyglot encoding of an {@link Move encoded} move */
+    static int encode(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.flag(move) == Move.FLAG_CASTLE) {
+            // The king's move to the g or c file becomes the king taking the rook on the h or a file
+            to = to > from ? to + 1 : to - 2;
+        }
+        int promotion = 0;
+        ChessPiece.PieceType type = Move.promotion(move);
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == type) {
+                promotion = i;
+            }
+        }
+        return to | from << 6 | promotion << 12;
+    }
+}
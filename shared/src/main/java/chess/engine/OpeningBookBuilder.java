@@ -0,0 +1,102 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles played games into an {@link OpeningBook} file. Each position met in
+ * a game's opening plies counts the move played from it, and a move's weight
+ * in the book is the number of games that played it.
+ */
+public final class OpeningBookBuilder {
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPly;
+    /** Times played, by position key and then by {@link OpeningBook#encode Polyglot move}. */
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+
+    /** @param maxPly the number of opening plies of each game to take into the book */
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Adds the opening of a game. Only games played from the standard start
+     * position are used, since the book is for openings; that is checked by
+     * replaying the whole game from it and arriving at the game's position.
+     *
+     * @return the number of the game's plies added
+     */
+    public int addGame(ChessGame game) {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        MoveList legal = new MoveList();
+        int plies = Math.min(game.getPlyCount(), maxPly);
+        long[] keys = new long[plies];
+        for (int i = 0; i < game.getPlyCount(); i++) {
+            int move = game.getMove(i);
+            legal.clear();
+            board.generateMoves(legal);
+            if (!legal.contains(move)) {
+                return 0;
+            }
+            if (i < plies) {
+                keys[i] = board.getZobristKey();
+            }
+            board.makeMove(move);
+        }
+        if (board.getZobristKey() != game.getBoard().getZobristKey()) {
+            // The game began from another position
+            return 0;
+        }
+        for (int i = 0; i < plies; i++) {
+            counts.computeIfAbsent(keys[i], key -> new HashMap<>())
+                    .merge(OpeningBook.encode(game.getMove(i)), 1, Integer::sum);
+        }
+        return plies;
+    }
+
+    /** @return the number of entries the book will have, one per position and move */
+    public int size() {
+        int size = 0;
+        for (Map<Integer, Integer> moves : counts.values()) {
+            size += moves.size();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the book, sorted by key and, within a position, most played move
+     * first. A position whose counts overflow a weight is scaled down to fit,
+     * keeping every move at a weight of at least one.
+     */
+    public void write(Path file) throws IOException {
+        Long[] keys = counts.keySet().toArray(new Long[0]);
+        Arrays.sort(keys, Long::compareUnsigned);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (long key : keys) {
+                Map<Integer, Integer> moves = counts.get(key);
+                int most = moves.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+                double scale = Math.min(1.0, (double) MAX_WEIGHT / most);
+                Integer[] ordered = moves.keySet().toArray(new Integer[0]);
+                Arrays.sort(ordered, (a, b) -> Integer.compare(moves.get(b), moves.get(a)));
+                for (int move : ordered) {
+                    out.writeLong(key);
+                    out.writeShort(move);
+                    out.writeShort(Math.max(1, (int) (moves.get(move) * scale)));
+                    out.writeInt(0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package chess.engine;
+
+/**
+ * Score constants shared by the search, the evaluation and the transposition
+ * table. Scores are centipawns from the side to move's point of view; a mate in
+ * {@code n} plies scores {@code MATE - n}.
+ */
+final class Score {
+    static final int DRAW = 0;
+    static final int MATE = 32_000;
+    static final int INFINITE = 32_001;
+    /** Scores at least this far from zero are mates found within the search. */
+    static final int MATE_BOUND = MATE - 2 * SearchLimits.MAX_DEPTH - 64;
+
+    private Score() {
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so the
+     * same entry is right wherever the position turns up in the tree.
+     */
+    static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+}
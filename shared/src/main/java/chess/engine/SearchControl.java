@@ -0,0 +1,48 @@
+package chess.engine;
+
+/**
+ * Lets other threads steer one search: stop it early, or end its pondering.
+ * <p>
+ * A pondering search speculatively searches the position after the reply the
+ * engine expects, on the opponent's time. Its time limit does not run until
+ * {@link #ponderHit()} reports that the opponent played the expected reply;
+ * from then on the time already spent counts against the limit, so the reply
+ * comes sooner than a fresh search would. On any other reply, {@link #stop()}
+ * the search and discard its result.
+ * <p>
+ * Create the control before handing the search to another thread, so that a
+ * request made before the search gets going is not lost.
+ */
+public final class SearchControl {
+    private volatile boolean stopped;
+    private volatile boolean pondering;
+
+    /** A control for a search whose time limit runs from the start. */
+    public SearchControl() {
+    }
+
+    /** @return a control for a search whose time limit waits for {@link #ponderHit()} */
+    public static SearchControl pondering() {
+        SearchControl control = new SearchControl();
+        control.pondering = true;
+        return control;
+    }
+
+    /** Asks the search to return its best move so far as soon as possible. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /** Starts the search's time limit, counted from when the search began. */
+    public void ponderHit() {
+        pondering = false;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+}
@@ -0,0 +1,36 @@
+package chess.engine;
+
+/**
+ * When a search should stop. A zero limit is no limit; the search stops at the
+ * first limit reached, and always by {@link #MAX_DEPTH}.
+ *
+ * @param depth  deepest iteration to complete
+ * @param nodes  nodes to visit
+ * @param millis wall-clock time to use
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 0 || nodes < 0 || millis < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    /** @return the deepest iteration the search may start */
+    int maxDepth() {
+        return depth == 0 ? MAX_DEPTH : Math.min(depth, MAX_DEPTH);
+    }
+}
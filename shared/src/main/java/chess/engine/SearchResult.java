@@ -0,0 +1,84 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a search.
+ *
+ * @param bestMove the {@link Move encoded} best move, or {@link Move#NONE} if
+ *                 the side to move has no legal move
+ * @param score    the score of the best move in centipawns from the side to
+ *                 move's point of view; see {@link #isMate()}
+ * @param depth    the deepest iteration that finished
+ * @param nodes    positions visited
+ * @param nanos    wall-clock time spent
+ * @param principalVariation the {@link Move encoded} line of play the search
+ *                 expects, starting with the best move; empty if there is no
+ *                 best move
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int[] principalVariation) {
+
+    public SearchResult {
+        principalVariation = principalVariation.clone();
+    }
+
+    @Override
+    public int[] principalVariation() {
+        return principalVariation.clone();
+    }
+
+    /** @return the principal variation as moves */
+    public List<ChessMove> principalVariationMoves() {
+        List<ChessMove> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation) {
+            moves.add(Move.toChessMove(move));
+        }
+        return moves;
+    }
+
+    /** @return the best move, or null if there is none */
+    public ChessMove bestChessMove() {
+        return bestMove == Move.NONE ? null : Move.toChessMove(bestMove);
+    }
+
+    /** @return true if the score is a forced mate for either side */
+    public boolean isMate() {
+        return Math.abs(score) >= Score.MATE_BOUND;
+    }
+
+    /**
+     * @return the number of moves until mate, negative when the side to move is
+     * the one getting mated; 0 if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Score.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    /** @return search throughput in nodes per second */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + (isMate() ? "mate " + mateIn() : score + "cp")
+                + " best " + (bestMove == Move.NONE ? "none" : Move.toString(bestMove))
+                + " nodes " + nodes + " nps " + nodesPerSecond() + " pv" + principalVariationString();
+    }
+
+    private String principalVariationString() {
+        StringBuilder line = new StringBuilder();
+        for (int move : principalVariation) {
+            line.append(' ').append(Move.toString(move));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,496 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.Arrays;
+
+/**
+ * Runs one iterative-deepening negamax alpha-beta search on its own copy of the
+ * board. Every buffer it needs is allocated up front, so the search itself
+ * allocates nothing.
+ * <p>
+ * In a parallel search every worker searches the same root and the workers
+ * share only the transposition table. Helper workers skip some iteration depths
+ * on a staggered schedule, so at any moment the threads are spread over
+ * several depths and fill the table with results the others can use.
+ * <p>
+ * Moves are tried in this order: the transposition table move, captures and
+ * promotions by most valuable victim then least valuable attacker, the two
+ * killer moves of the ply, and the remaining quiet moves by history score.
+ * <p>
+ * At the horizon a quiescence search plays out captures and promotions until
+ * the position is quiet, so a leaf is never scored in the middle of an
+ * exchange. It skips captures that lose material by static exchange
+ * evaluation, and captures that could not lift the score to alpha even if
+ * nothing were recaptured.
+ * <p>
+ * Positions covered by the endgame tablebases are scored from them without
+ * searching any further.
+ */
+final class SearchWorker {
+    static final int MAX_PLY = 128;
+
+    private static final int SCORE_TT_MOVE = 1 << 30;
+    private static final int SCORE_CAPTURE = 1 << 24;
+    private static final int SCORE_FIRST_KILLER = 1 << 23;
+    private static final int SCORE_SECOND_KILLER = SCORE_FIRST_KILLER - 1;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    /** Positional swing allowed for when delta pruning a capture in quiescence search. */
+    private static final int DELTA_MARGIN = 200;
+    /** How many nodes pass between checks of the clock and the stop flag. */
+    private static final int CHECK_INTERVAL = 1024;
+    /*
+     * Depth skipping for helper workers: helper n skips depth d when
+     * ((d + SKIP_PHASE[n]) / SKIP_SIZE[n]) is odd, with n wrapping around.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final Engine engine;
+    /** 0 for the main worker, whose result the engine reports; helpers count up from 1. */
+    private final int id;
+    private final TranspositionTable table;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[] history = new int[2 * 64 * 64];
+    private final long[] pathKeys = new long[MAX_PLY + 2];
+    /** Keys of the game's positions before the root that can still repeat, oldest first. */
+    private long[] playedKeys;
+    private final Evaluator evaluator = new Evaluator(MAX_PLY);
+    private final StaticExchange exchange = new StaticExchange();
+
+    private ChessBoard board;
+    private SearchLimits limits;
+    private Tablebases tablebases;
+    private long nodes;
+    private boolean stopped;
+    private int rootBestMove;
+    private int rootBestScore;
+
+    SearchWorker(Engine engine, TranspositionTable table, int id) {
+        this.engine = engine;
+        this.table = table;
+        this.id = id;
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /** Forgets the killer and history tables, for a new game. */
+    void clear() {
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * @param root   the position to search; the worker searches a copy of it
+     * @param played the keys of the game's positions before the root since its
+     *               last capture or pawn move, oldest first
+     */
+    SearchResult search(ChessBoard root, long[] played, SearchLimits limits, long startNanos) {
+        this.board = new ChessBoard(root);
+        this.playedKeys = played;
+        this.limits = limits;
+        this.tablebases = engine.tablebases();
+        this.nodes = 0;
+        this.stopped = false;
+        pathKeys[0] = board.getZobristKey();
+        evaluator.reset(board);
+
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+            if (skipsDepth(depth)) {
+                continue;
+            }
+            rootBestMove = Move.NONE;
+            int score = search(depth, 0, -Score.INFINITE, Score.INFINITE);
+            if (stopped) {
+                // A partly searched iteration still improves on the last one
+                // once its best move has been fully searched
+                if (rootBestMove != Move.NONE) {
+                    bestMove = rootBestMove;
+                    bestScore = rootBestScore;
+                }
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (bestMove == Move.NONE || Math.abs(score) >= Score.MATE_BOUND && Score.MATE - Math.abs(score) <= depth) {
+                break;
+            }
+        }
+        if (bestMove == Move.NONE) {
+            // Stopped before the first iteration finished a move: any legal move beats none
+            MoveList moves = moveLists[0];
+            moves.clear();
+            board.generateMoves(moves);
+            if (!moves.isEmpty()) {
+                bestMove = moves.get(0);
+            }
+        }
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - startNanos,
+                principalVariation(bestMove, completedDepth));
+    }
+
+    /**
+     * Follows the transposition table from the root, starting with the best
+     * move, for at most {@code depth} moves. The line ends early where the
+     * table has no move, where a stored move is not legal because the entry
+     * was overwritten, or where a position repeats.
+     */
+    private int[] principalVariation(int bestMove, int depth) {
+        int[] line = new int[Math.min(Math.max(depth, 1), MAX_PLY)];
+        long[] undos = new long[line.length];
+        int length = 0;
+        int move = bestMove;
+        while (move != Move.NONE && length < line.length) {
+            MoveList moves = moveLists[length];
+            moves.clear();
+            board.generateMoves(moves);
+            if (!moves.contains(move)) {
+                break;
+            }
+            line[length] = move;
+            undos[length] = board.makeMove(move);
+            length++;
+            pathKeys[length] = board.getZobristKey();
+            if (isRepetition(length)) {
+                break;
+            }
+            move = TranspositionTable.move(table.probe(board.getZobristKey()));
+        }
+        for (int ply = length - 1; ply >= 0; ply--) {
+            board.unmakeMove(undos[ply]);
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    private boolean skipsDepth(int depth) {
+        if (id == 0 || depth == 1) {
+            return false;
+        }
+        int n = (id - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[n]) / SKIP_SIZE[n]) % 2 != 0;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        if (++nodes % CHECK_INTERVAL == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        boolean root = ply == 0;
+        boolean pvNode = beta - alpha > 1;
+        if (!root) {
+            if (isRepetition(ply)) {
+                return Score.DRAW;
+            }
+            // Nothing found here can beat a shorter mate already found
+            alpha = Math.max(alpha, -Score.MATE + ply);
+            beta = Math.min(beta, Score.MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+            if (tablebases != null && Long.bitCount(board.getOccupancy()) <= Tablebases.MAX_PIECES) {
+                int score = tablebases.probe(board);
+                if (score != Tablebases.NOT_FOUND) {
+                    // Table mates count from this node, like transposition table scores
+                    return Score.fromTable(score, ply);
+                }
+            }
+        }
+
+        ChessGame.TeamColor us = board.getTeamTurn();
+        boolean inCheck = board.isInCheck(us);
+        if (inCheck) {
+            depth++;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(us);
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta, inCheck);
+        }
+
+        long key = board.getZobristKey();
+        long entry = table.probe(key);
+        int ttMove = Move.NONE;
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = Score.fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || bound == TranspositionTable.BOUND_LOWER && score >= beta
+                        || bound == TranspositionTable.BOUND_UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        board.generateMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -Score.MATE + ply : Score.DRAW;
+        }
+        scoreMoves(moves, ply, ttMove, us);
+
+        int originalAlpha = alpha;
+        int bestScore = -Score.INFINITE;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            boolean quiet = isQuiet(move);
+            evaluator.makeMove(board, move);
+            long undo = board.makeMove(move);
+            pathKeys[ply + 1] = board.getZobristKey();
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                // Later moves are expected to fail low, so prove it with a null window first
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove(undo);
+            evaluator.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (root) {
+                    rootBestMove = move;
+                    rootBestScore = score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            rememberCutoff(move, ply, depth, us);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, Score.toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches captures and promotions only, taking the static evaluation as
+     * the score whenever standing pat is at least as good. A side in check
+     * has no stand-pat option and searches every evasion instead.
+     */
+    private int quiesce(int ply, int alpha, int beta, boolean inCheck) {
+        ChessGame.TeamColor us = board.getTeamTurn();
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(us);
+        }
+        int bestScore = -Score.INFINITE;
+        int standPat = -Score.INFINITE;
+        if (!inCheck) {
+            standPat = evaluator.evaluate(us);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        if (inCheck) {
+            board.generateMoves(moves);
+            if (moves.isEmpty()) {
+                return -Score.MATE + ply;
+            }
+        } else {
+            board.generateCaptures(moves);
+        }
+        scoreMoves(moves, ply, Move.NONE, us);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            if (!inCheck) {
+                ChessPiece.PieceType promotion = Move.promotion(move);
+                if (promotion != null && promotion != ChessPiece.PieceType.QUEEN
+                        || standPat + captureValue(move) + DELTA_MARGIN <= alpha
+                        || exchange.evaluate(board, move) < 0) {
+                    continue;
+                }
+            }
+            evaluator.makeMove(board, move);
+            long undo = board.makeMove(move);
+            int score = -quiescenceNode(ply + 1, -beta, -alpha);
+            board.unmakeMove(undo);
+            evaluator.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /** Counts a quiescence node and checks the limits, as {@link #search} does for its nodes. */
+    private int quiescenceNode(int ply, int alpha, int beta) {
+        if (++nodes % CHECK_INTERVAL == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        return quiesce(ply, alpha, beta, board.isInCheck(board.getTeamTurn()));
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int ttMove, ChessGame.TeamColor us) {
+        int[] scores = moveScores[ply];
+        int[] plyKillers = killers[ply];
+        int historyBase = us.ordinal() * 64 * 64;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == ttMove) {
+                score = SCORE_TT_MOVE;
+            } else if (!isQuiet(move)) {
+                score = SCORE_CAPTURE + captureValue(move) * 16 - pieceValue(Move.from(move)) / 100;
+            } else if (move == plyKillers[0]) {
+                score = SCORE_FIRST_KILLER;
+            } else if (move == plyKillers[1]) {
+                score = SCORE_SECOND_KILLER;
+            } else {
+                score = history[historyBase + Move.from(move) * 64 + Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Selection sort one step at a time: a cutoff usually comes early, so most
+     * of the list never needs sorting.
+     */
+    private int pickNext(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves.get(index);
+    }
+
+    private void rememberCutoff(int move, int ply, int depth, ChessGame.TeamColor us) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int slot = us.ordinal() * 64 * 64 + Move.from(move) * 64 + Move.to(move);
+        history[slot] += depth * depth;
+        if (history[slot] >= HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    /** @return true if the move neither captures nor promotes */
+    private boolean isQuiet(int move) {
+        int flag = Move.flag(move);
+        if (flag == Move.FLAG_EN_PASSANT || Move.promotion(move) != null) {
+            return false;
+        }
+        return (board.getOccupancy() & 1L << Move.to(move)) == 0;
+    }
+
+    /** @return the value of what the move wins: the captured piece plus any promotion gain */
+    private int captureValue(int move) {
+        int value = Move.flag(move) == Move.FLAG_EN_PASSANT
+                ? Evaluation.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()]
+                : pieceValue(Move.to(move));
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            value += Evaluation.PIECE_VALUES[promotion.ordinal()]
+                    - Evaluation.PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        }
+        return value;
+    }
+
+    private int pieceValue(int sq) {
+        ChessPiece piece = board.getPiece(sq);
+        return piece == null ? 0 : Evaluation.PIECE_VALUES[piece.getPieceType().ordinal()];
+    }
+
+    /**
+     * @return true if the position at this ply already occurred with the same
+     * side to move, on the path from the root or earlier in the game. Playing
+     * into a repetition can always be repeated again, so it scores as a draw.
+     */
+    private boolean isRepetition(int ply) {
+        long key = pathKeys[ply];
+        int i = ply - 2;
+        for (; i >= 0; i -= 2) {
+            if (pathKeys[i] == key) {
+                return true;
+            }
+        }
+        // Path index -1 is the last position played before the root
+        for (int j = playedKeys.length + i; j >= 0; j -= 2) {
+            if (playedKeys[j] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The node budget covers all threads, and the workers search at about the
+     * same rate, so each one checks its own count against its share.
+     */
+    private void checkLimits() {
+        if (engine.isStopRequested()
+                || limits.nodes() != 0 && nodes * engine.getThreads() >= limits.nodes()
+                || System.nanoTime() >= engine.deadline()) {
+            stopped = true;
+        }
+    }
+}
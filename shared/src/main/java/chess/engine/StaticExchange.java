@@ -0,0 +1,91 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both
+ * sides have made every profitable recapture on its target square, worked out
+ * from attack tables without playing any move.
+ * <p>
+ * Each side recaptures with its least valuable attacker and may stop whenever
+ * carrying on would lose material. Attackers are found again after every
+ * capture, so sliders lined up behind a capturing piece join in. Pins are
+ * ignored. An instance keeps its scratch space between calls, so each search
+ * worker owns one.
+ */
+final class StaticExchange {
+    /** Piece values for exchanges; the king is worth more than anything it can win. */
+    private static final int[] VALUES = {Score.MATE, 900, 330, 320, 500, 100};
+    /** Piece types from least to most valuable, the order attackers are used in. */
+    private static final ChessPiece.PieceType[] ATTACKER_ORDER = {
+            ChessPiece.PieceType.PAWN, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
+    };
+    /** Each exchange removes a piece, so it ends within 32 captures. */
+    private static final int MAX_EXCHANGES = 32;
+
+    private final int[] gain = new int[MAX_EXCHANGES];
+
+    /**
+     * @param move a legal {@link Move encoded} capture or promotion in the position
+     * @return the material the side to move gains by the move and the exchange
+     * it starts, in centipawns; negative if the move loses material
+     */
+    int evaluate(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        ChessPiece.PieceType moved = board.getPiece(from).getPieceType();
+
+        long occupied = board.getOccupancy() ^ 1L << from;
+        if (Move.flag(move) == Move.FLAG_EN_PASSANT) {
+            occupied ^= 1L << ((from & ~7) | (to & 7));
+            gain[0] = VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        } else {
+            ChessPiece victim = board.getPiece(to);
+            gain[0] = victim == null ? 0 : VALUES[victim.getPieceType().ordinal()];
+        }
+        int onSquare = VALUES[moved.ordinal()];
+        if (promotion != null) {
+            gain[0] += VALUES[promotion.ordinal()] - VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+            onSquare = VALUES[promotion.ordinal()];
+        }
+
+        ChessGame.TeamColor side = board.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGES) {
+            long attackers = board.attackersOf(to, side, occupied) & occupied;
+            if (attackers == 0) {
+                break;
+            }
+            ChessPiece.PieceType attacker = null;
+            long bit = 0L;
+            for (ChessPiece.PieceType type : ATTACKER_ORDER) {
+                long pieces = attackers & board.getBitboard(side, type);
+                if (pieces != 0) {
+                    attacker = type;
+                    bit = pieces & -pieces;
+                    break;
+                }
+            }
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            // Neither side can come out ahead by carrying on
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                break;
+            }
+            occupied ^= bit;
+            onSquare = VALUES[attacker.ordinal()];
+            side = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        }
+        // Each side takes the better of stopping and recapturing, from the last capture back
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+}
@@ -0,0 +1,357 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the {@link Tablebases} offline by retrograde analysis.
+ * <p>
+ * A first pass sets up every canonical position of the endgame on a
+ * {@link ChessBoard} and asks the rules for its legal moves. It finds the
+ * checkmates, the stalemates and the positions where the weak king can take a
+ * piece, which are draws; it counts the other moves of each weak-side
+ * position; and for a pawn it looks promotions up in the queen and rook
+ * tables.
+ * <p>
+ * The rest works backwards from the mates, one ply at a time. Every
+ * position of a strong move that reaches a position lost in {@code n - 1}
+ * plies is won in {@code n}. Every weak-side position whose last move is
+ * found to reach a won position is lost in {@code n}, its moves counted down
+ * as they are found. The predecessors of a position are found by taking its
+ * last move back, which for lone kings and pieces that never capture is
+ * simple geometry. Each ply's positions are worked through in parallel.
+ * Whatever is left when no new positions turn up is a draw.
+ */
+public final class TablebaseGenerator {
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final int[][] KING_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_JUMPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] STRAIGHT = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] DIAGONAL = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ALL_LINES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private final Endgame endgame;
+    private final Tablebases promotions;
+    private final int half;
+    private final byte[] values;
+    /** Moves of each weak-side position not yet found to lose, or 0 once it cannot lose. */
+    private final AtomicIntegerArray counts;
+    /** The mate a promotion wins each strong-side position in, in plies, or 0. */
+    private final byte[] promotionWins;
+
+    private TablebaseGenerator(Endgame endgame, Tablebases promotions) {
+        this.endgame = endgame;
+        this.promotions = promotions;
+        this.half = endgame.size / 2;
+        this.values = new byte[endgame.size];
+        this.counts = new AtomicIntegerArray(half);
+        this.promotionWins = new byte[half];
+    }
+
+    /**
+     * Computes one endgame's table.
+     *
+     * @param promotions tablebases holding the queen and rook tables, needed
+     *                   only for the pawn endgame
+     * @return the table, one byte per index as described in {@link Tablebases}
+     * @throws IllegalArgumentException if a promotion leads to a table that is missing
+     */
+    public static byte[] generate(Endgame endgame, Tablebases promotions) {
+        TablebaseGenerator generator = new TablebaseGenerator(endgame, promotions);
+        generator.run();
+        return generator.values;
+    }
+
+    /**
+     * Generates every endgame whose table is not in the directory yet, each
+     * file written in one step, and maps them all.
+     */
+    public static Tablebases generateAll(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<Endgame, ByteBuffer> done = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            Path file = directory.resolve(endgame.fileName());
+            if (!Files.exists(file)) {
+                byte[] table = generate(endgame, new Tablebases(done));
+                Path partial = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(partial, table);
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            done.put(endgame, ByteBuffer.wrap(Files.readAllBytes(file)).asReadOnlyBuffer());
+        }
+        return Tablebases.open(directory);
+    }
+
+    /** Generates the tables into the directory given, or {@code tablebases}. */
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "tablebases");
+        long start = System.nanoTime();
+        Tablebases tablebases = generateAll(directory);
+        System.out.println("Tablebases " + tablebases.endgames() + " in " + directory + " after "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void run() {
+        IntStream.range(0, endgame.size).parallel().forEach(this::classify);
+        int[] frontier = IntStream.range(half, endgame.size).filter(i -> values[i] == 1).toArray();
+        int lastPromotionWin = 0;
+        for (byte plies : promotionWins) {
+            lastPromotionWin = Math.max(lastPromotionWin, plies & 0xFF);
+        }
+        for (int plies = 1; frontier.length > 0 || plies <= lastPromotionWin; plies++) {
+            int n = plies;
+            if (n % 2 == 1) {
+                IntStream won = IntStream.of(frontier).parallel().flatMap(lost -> IntStream.of(winsBefore(lost, n)));
+                IntStream promoted = IntStream.range(0, half).parallel()
+                        .filter(i -> (promotionWins[i] & 0xFF) == n && resolve(i, n));
+                frontier = IntStream.concat(won, promoted).toArray();
+            } else {
+                frontier = IntStream.of(frontier).parallel().flatMap(won -> IntStream.of(lossesBefore(won, n))).toArray();
+            }
+        }
+    }
+
+    /** Marks an index illegal or sets up its position's first-pass facts. */
+    private void classify(int index) {
+        int[] squares = new int[4];
+        boolean strongToMove = endgame.decode(index, squares);
+        if (!placeable(squares) || canonical(strongToMove, squares) != index) {
+            values[index] = (byte) Tablebases.ILLEGAL;
+            return;
+        }
+        ChessBoard board = board(strongToMove, squares);
+        ChessGame.TeamColor moved = strongToMove ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (board.isInCheck(moved)) {
+            values[index] = (byte) Tablebases.ILLEGAL;
+            return;
+        }
+        MoveList moves = new MoveList();
+        board.generateMoves(moves);
+        if (strongToMove) {
+            promotionWins[index] = (byte) promotionWin(board, moves);
+            return;
+        }
+        if (moves.isEmpty()) {
+            if (board.isInCheck(board.getTeamTurn())) {
+                values[index] = 1;
+            }
+            return;
+        }
+        int[] children = new int[moves.size()];
+        int distinct = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (board.getPiece(Move.to(move)) != null) {
+                // Taking a piece leaves too little to mate with
+                return;
+            }
+            long undo = board.makeMove(move);
+            distinct = addDistinct(children, distinct, endgame.index(board, ChessGame.TeamColor.WHITE));
+            board.unmakeMove(undo);
+        }
+        counts.set(index - half, distinct);
+    }
+
+    /** @return the fastest mate in plies a promotion leads to, or 0 */
+    private int promotionWin(ChessBoard board, MoveList moves) {
+        int best = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            ChessPiece.PieceType promotion = Move.promotion(move);
+            if (promotion == null) {
+                continue;
+            }
+            long undo = board.makeMove(move);
+            int score = promotions.probe(board);
+            board.unmakeMove(undo);
+            if (score == Tablebases.NOT_FOUND) {
+                if (promotion == ChessPiece.PieceType.QUEEN || promotion == ChessPiece.PieceType.ROOK) {
+                    throw new IllegalArgumentException("Generating " + endgame + " needs the "
+                            + (promotion == ChessPiece.PieceType.QUEEN ? Endgame.KQK : Endgame.KRK) + " table");
+                }
+                // A lone bishop or knight cannot mate
+                continue;
+            }
+            if (score < 0) {
+                int plies = Score.MATE + score + 1;
+                best = best == 0 ? plies : Math.min(best, plies);
+            }
+        }
+        return best;
+    }
+
+    /** @return the strong-side positions newly found to win in n plies, by reaching the lost position */
+    private int[] winsBefore(int lost, int n) {
+        int[] squares = new int[4];
+        endgame.decode(lost, squares);
+        int[] found = new int[64 * (1 + endgame.pieces.length)];
+        int count = 0;
+        long occupied = occupancy(squares);
+        int[] targets = new int[27];
+        for (int piece = 0; piece < 2 + endgame.pieces.length; piece++) {
+            if (piece == 1) {
+                continue;
+            }
+            int from = squares[piece];
+            int targetCount = piece == 0 ? steps(from, occupied, KING_STEPS, false, targets)
+                    : unmoves(endgame.pieces[piece - 2], from, occupied, targets);
+            for (int t = 0; t < targetCount; t++) {
+                squares[piece] = targets[t];
+                int before = canonical(true, squares);
+                if (resolve(before, n)) {
+                    found[count++] = before;
+                }
+            }
+            squares[piece] = from;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** @return the weak-side positions newly found to lose in n plies, their last move reaching the won position */
+    private int[] lossesBefore(int won, int n) {
+        int[] squares = new int[4];
+        endgame.decode(won, squares);
+        int[] targets = new int[8];
+        int targetCount = steps(squares[1], occupancy(squares), KING_STEPS, false, targets);
+        int[] before = new int[targetCount];
+        int distinct = 0;
+        int weakKing = squares[1];
+        for (int t = 0; t < targetCount; t++) {
+            squares[1] = targets[t];
+            distinct = addDistinct(before, distinct, canonical(false, squares));
+        }
+        squares[1] = weakKing;
+        int[] found = new int[distinct];
+        int count = 0;
+        for (int i = 0; i < distinct; i++) {
+            int index = before[i];
+            if (values[index] == 0 && counts.get(index - half) > 0
+                    && counts.decrementAndGet(index - half) == 0 && resolve(index, n)) {
+                found[count++] = index;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /** Claims an unresolved index as a mate in n plies. */
+    private boolean resolve(int index, int n) {
+        if (n + 1 >= Tablebases.ILLEGAL) {
+            throw new IllegalStateException(endgame + " has a mate too long for its table");
+        }
+        return VALUES.compareAndSet(values, index, (byte) 0, (byte) (n + 1));
+    }
+
+    private int canonical(boolean strongToMove, int[] squares) {
+        return endgame.index(strongToMove, squares[0], squares[1], squares[2], squares[3]);
+    }
+
+    private boolean placeable(int[] squares) {
+        int count = 2 + endgame.pieces.length;
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < i; j++) {
+                if (squares[i] == squares[j]) {
+                    return false;
+                }
+            }
+        }
+        for (int i = 0; i < endgame.pieces.length; i++) {
+            if (!Endgame.allows(endgame.pieces[i], squares[2 + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ChessBoard board(boolean strongToMove, int[] squares) {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(position(squares[0]), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(position(squares[1]), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        for (int i = 0; i < endgame.pieces.length; i++) {
+            board.addPiece(position(squares[2 + i]), ChessPiece.of(ChessGame.TeamColor.WHITE, endgame.pieces[i]));
+        }
+        board.setTeamTurn(strongToMove ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+        return board;
+    }
+
+    private long occupancy(int[] squares) {
+        long occupied = 0;
+        for (int i = 0; i < 2 + endgame.pieces.length; i++) {
+            occupied |= 1L << squares[i];
+        }
+        return occupied;
+    }
+
+    /** Fills in the squares a piece on {@code to} may have come from by a quiet move. */
+    private static int unmoves(ChessPiece.PieceType type, int to, long occupied, int[] targets) {
+        return switch (type) {
+            case QUEEN -> steps(to, occupied, ALL_LINES, true, targets);
+            case ROOK -> steps(to, occupied, STRAIGHT, true, targets);
+            case BISHOP -> steps(to, occupied, DIAGONAL, true, targets);
+            case KNIGHT -> steps(to, occupied, KNIGHT_JUMPS, false, targets);
+            case PAWN -> pawnUnmoves(to, occupied, targets);
+            case KING -> steps(to, occupied, KING_STEPS, false, targets);
+        };
+    }
+
+    /** A white pawn comes from one square below, or from its second rank two squares below. */
+    private static int pawnUnmoves(int to, long occupied, int[] targets) {
+        int count = 0;
+        int below = to - 8;
+        if (below >= 8 && (occupied & 1L << below) == 0) {
+            targets[count++] = below;
+            if (to >>> 3 == 3 && (occupied & 1L << below - 8) == 0) {
+                targets[count++] = below - 8;
+            }
+        }
+        return count;
+    }
+
+    /** Fills in the empty squares reached by the steps, or along them when sliding. */
+    private static int steps(int from, long occupied, int[][] directions, boolean slide, int[] targets) {
+        int count = 0;
+        for (int[] direction : directions) {
+            int file = (from & 7) + direction[0];
+            int rank = (from >>> 3) + direction[1];
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8 && (occupied & 1L << (rank << 3 | file)) == 0) {
+                targets[count++] = rank << 3 | file;
+                if (!slide) {
+                    break;
+                }
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return count;
+    }
+
+    private static int addDistinct(int[] list, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (list[i] == value) {
+                return size;
+            }
+        }
+        list[size] = value;
+        return size + 1;
+    }
+
+    private static ChessPosition position(int sq) {
+        return new ChessPosition((sq >>> 3) + 1, (sq & 7) + 1);
+    }
+}
@@ -0,0 +1,198 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Perfect play in the {@link Endgame endgames} of a king and one or two pieces
+ * against a lone king, from tables written by {@link TablebaseGenerator} and
+ * memory-mapped read-only.
+ * <p>
+ * A table holds one byte per position, see {@link Endgame}: 0 for a draw,
+ * {@code n + 1} for a mate in {@code n} plies, won by the strong side and lost
+ * by the weak side, and {@link #ILLEGAL} for an index that is not a legal,
+ * canonical position. A probe is a handful of reflections and one read. The
+ * tables know nothing of castling, so positions where it may still happen are
+ * left to the search, and nothing of the fifty-move rule.
+ * <p>
+ * Tablebases may be shared by any number of threads.
+ */
+public final class Tablebases {
+    /** What {@link #probe(ChessBoard)} returns for a position no table covers. */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    /** The most pieces, kings included, of any position the tables cover. */
+    public static final int MAX_PIECES = 4;
+
+    static final int ILLEGAL = 0xFF;
+
+    private final Map<Endgame, ByteBuffer> tables;
+
+    Tablebases(Map<Endgame, ByteBuffer> tables) {
+        this.tables = new EnumMap<>(Endgame.class);
+        this.tables.putAll(tables);
+    }
+
+    /**
+     * Maps every table found in the directory. Endgames without a file are
+     * left out, except that the pawn endgame needs the queen and rook tables
+     * its promotions lead to.
+     *
+     * @throws IOException if a table cannot be read or has the wrong size
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Map<Endgame, ByteBuffer> tables = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            Path file = directory.resolve(endgame.fileName());
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != endgame.size) {
+                    throw new IOException("Not a " + endgame + " table: " + file);
+                }
+                tables.put(endgame, channel.map(FileChannel.MapMode.READ_ONLY, 0, endgame.size));
+            }
+        }
+        if (!tables.containsKey(Endgame.KQK) || !tables.containsKey(Endgame.KRK)) {
+            tables.remove(Endgame.KPK);
+        }
+        return new Tablebases(tables);
+    }
+
+    /** @return the endgames these tablebases cover */
+    public Set<Endgame> endgames() {
+        return tables.keySet();
+    }
+
+    /**
+     * Looks the position up in constant time.
+     *
+     * @return the score of the position for the side to move on the search's
+     * scale: 0 for a draw, {@code MATE - n} for a mate in {@code n} plies and
+     * its negation when the side to move is the one mated, as with
+     * {@link SearchResult#isMate()}; or {@link #NOT_FOUND} if no table covers
+     * the position
+     */
+    public int probe(ChessBoard board) {
+        long white = board.getOccupancy(ChessGame.TeamColor.WHITE);
+        long black = board.getOccupancy(ChessGame.TeamColor.BLACK);
+        if (Long.bitCount(white | black) > MAX_PIECES) {
+            return NOT_FOUND;
+        }
+        ChessGame.TeamColor strong;
+        if (Long.bitCount(black) == 1) {
+            strong = ChessGame.TeamColor.WHITE;
+        } else if (Long.bitCount(white) == 1) {
+            strong = ChessGame.TeamColor.BLACK;
+        } else {
+            return NOT_FOUND;
+        }
+        // A board built by hand may lack a king, which no table has a square for
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        if (board.getBitboard(weak, ChessPiece.PieceType.KING) != board.getOccupancy(weak)) {
+            return NOT_FOUND;
+        }
+        Endgame endgame = Endgame.of(board, strong);
+        ByteBuffer table = endgame == null ? null : tables.get(endgame);
+        if (table == null || endgame == Endgame.KRK && mayCastle(board, strong)) {
+            return NOT_FOUND;
+        }
+        int value = table.get(endgame.index(board, strong)) & 0xFF;
+        if (value == ILLEGAL) {
+            return NOT_FOUND;
+        }
+        if (value == 0) {
+            return Score.DRAW;
+        }
+        int plies = value - 1;
+        return board.getTeamTurn() == strong ? Score.MATE - plies : -Score.MATE + plies;
+    }
+
+    /**
+     * Plays the position out from the tables: the fastest mate for the winner,
+     * the slowest for the loser, and any drawing move in a draw.
+     *
+     * @return the best move with the line to mate, or to the first move of a
+     * draw, scored as by {@link #probe(ChessBoard)}; null if no table covers
+     * the position or a move leads out of the tables
+     */
+    public SearchResult solve(ChessBoard board) {
+        long start = System.nanoTime();
+        int score = probe(board);
+        if (score == NOT_FOUND) {
+            return null;
+        }
+        ChessBoard line = new ChessBoard(board);
+        int[] moves = new int[score == Score.DRAW ? 1 : Score.MATE - Math.abs(score)];
+        int length = 0;
+        long nodes = 1;
+        MoveList legal = new MoveList();
+        while (length < moves.length) {
+            legal.clear();
+            line.generateMoves(legal);
+            int best = Move.NONE;
+            int bestScore = -Score.INFINITE;
+            for (int i = 0; i < legal.size(); i++) {
+                int move = legal.get(i);
+                long undo = line.makeMove(move);
+                int child = probeOrDrawn(line);
+                line.unmakeMove(undo);
+                nodes++;
+                if (child == NOT_FOUND) {
+                    return null;
+                }
+                if (-child > bestScore) {
+                    bestScore = -child;
+                    best = move;
+                }
+            }
+            if (best == Move.NONE) {
+                break;
+            }
+            moves[length++] = best;
+            line.makeMove(best);
+        }
+        return new SearchResult(length == 0 ? Move.NONE : moves[0], score, length, nodes,
+                System.nanoTime() - start, Arrays.copyOf(moves, length));
+    }
+
+    /** Probes, counting a lone minor piece or bare kings as the draw they are. */
+    private int probeOrDrawn(ChessBoard board) {
+        int score = probe(board);
+        if (score == NOT_FOUND && Long.bitCount(board.getOccupancy()) <= 3) {
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                if ((board.getBitboard(color, ChessPiece.PieceType.QUEEN)
+                        | board.getBitboard(color, ChessPiece.PieceType.ROOK)
+                        | board.getBitboard(color, ChessPiece.PieceType.PAWN)) != 0) {
+                    return NOT_FOUND;
+                }
+            }
+            return Score.DRAW;
+        }
+        return score;
+    }
+
+    /** @return true if the strong side holds a castling right with its king and a rook at home */
+    private static boolean mayCastle(ChessBoard board, ChessGame.TeamColor strong) {
+        int home = strong == ChessGame.TeamColor.WHITE ? 4 : 60;
+        long rookHomes = 1L << home - 4 | 1L << home + 3;
+        return board.hasCastlingRights(strong)
+                && board.getBitboard(strong, ChessPiece.PieceType.KING) == 1L << home
+                && (board.getBitboard(strong, ChessPiece.PieceType.ROOK) & rookHomes) != 0;
+    }
+}
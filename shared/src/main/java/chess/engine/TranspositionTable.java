@@ -0,0 +1,137 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed-size hash table of search results keyed by Zobrist key, stored off
+ * the Java heap so that even a table of several gigabytes adds nothing for the
+ * garbage collector to trace or copy. Each entry is 16 bytes, a key word and a
+ * packed data word:
+ * <pre>
+ *  bits  0–15  best move ({@link Move encoded})
+ *  bits 16–31  score, signed, with mates relative to the node
+ *  bits 32–39  depth searched
+ *  bits 40–41  bound: exact, lower or upper
+ *  bits 42–47  generation of the search that stored it
+ * </pre>
+ * A slot is replaced when it holds a different position from an older search,
+ * or when the new result searched at least as deep.
+ * <p>
+ * Search threads share one table without locking. Each slot stores the key
+ * XORed with the data word, so a probe that reads the halves of two different
+ * writes sees a key that does not match and treats the slot as empty.
+ * <p>
+ * The memory is a set of direct buffers of at most {@link #CHUNK_ENTRIES}
+ * entries each, since one buffer cannot pass 2 GB.
+ */
+final class TranspositionTable {
+    static final int BOUND_EXACT = 1;
+    static final int BOUND_LOWER = 2;
+    static final int BOUND_UPPER = 3;
+
+    static final int ENTRY_BYTES = 16;
+    static final int CHUNK_ENTRIES = 1 << 26;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_ENTRIES);
+    private static final int GENERATION_MASK = 0x3F;
+    /** Aligned long access to a direct buffer; plain get and set of an aligned long are atomic. */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+    private final long mask;
+    private final int chunkMask;
+    private int generation;
+
+    /** @param megabytes memory to use, rounded down to a power of two number of entries */
+    TranspositionTable(int megabytes) {
+        long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES));
+        int chunkEntries = (int) Math.min(entries, CHUNK_ENTRIES);
+        chunks = new ByteBuffer[(int) (entries / chunkEntries)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkEntries * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+        }
+        mask = entries - 1;
+        chunkMask = chunkEntries - 1;
+    }
+
+    /** @return the number of entries the table holds */
+    long capacity() {
+        return mask + 1;
+    }
+
+    /** Marks the entries stored so far as belonging to an earlier search. */
+    void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /** Empties the table, for a new game. */
+    void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                LONGS.set(chunk, offset, 0L);
+            }
+        }
+        generation = 0;
+    }
+
+    /** @return the data word stored for the key, or 0 if there is none */
+    long probe(long key) {
+        ByteBuffer chunk = chunk(key);
+        int offset = offset(key);
+        long entry = (long) LONGS.get(chunk, offset + Long.BYTES);
+        return ((long) LONGS.get(chunk, offset) ^ entry) == key ? entry : 0L;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        ByteBuffer chunk = chunk(key);
+        int offset = offset(key);
+        long old = (long) LONGS.get(chunk, offset + Long.BYTES);
+        boolean samePosition = ((long) LONGS.get(chunk, offset) ^ old) == key;
+        if (samePosition || generation(old) != generation || depth >= depth(old)) {
+            if (move == Move.NONE && samePosition) {
+                move = move(old);
+            }
+            long entry = (move & 0xFFFFL)
+                    | (score & 0xFFFFL) << 16
+                    | (long) (depth & 0xFF) << 32
+                    | (long) bound << 40
+                    | (long) generation << 42;
+            LONGS.set(chunk, offset, key ^ entry);
+            LONGS.set(chunk, offset + Long.BYTES, entry);
+        }
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 42) & GENERATION_MASK;
+    }
+
+    private ByteBuffer chunk(long key) {
+        return chunks[(int) ((key & mask) >>> CHUNK_SHIFT)];
+    }
+
+    private int offset(long key) {
+        return ((int) key & chunkMask) * ENTRY_BYTES;
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * An engine's verdict on a position. Scores are in centipawns from white's
+ * point of view; {@code mateIn} is the number of moves to a forced mate,
+ * positive when white mates and null when no mate was found.
+ */
+public record AnalysisData(ChessMove bestMove, int score, Integer mateIn, int depth, long nodes,
+                           List<ChessMove> principalVariation) {}
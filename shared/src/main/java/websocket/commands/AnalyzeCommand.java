@@ -0,0 +1,24 @@
+package websocket.commands;
+
+public class AnalyzeCommand extends UserGameCommand {
+    private final String fen;
+    private final Integer millis;
+
+    /**
+     * @param fen    position to analyze instead of the game's current one, or null
+     * @param millis search time budget, or null for the server's default
+     */
+    public AnalyzeCommand(String authToken, Integer gameID, String fen, Integer millis) {
+        super(CommandType.ANALYZE, authToken, gameID);
+        this.fen = fen;
+        this.millis = millis;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public Integer getMillis() {
+        return millis;
+    }
+}
@@ -0,0 +1,16 @@
+package websocket.messages;
+
+import model.AnalysisData;
+
+public class AnalysisMessage extends ServerMessage {
+    private final AnalysisData analysis;
+
+    public AnalysisMessage(AnalysisData analysis) {
+        super(ServerMessageType.ANALYSIS);
+        this.analysis = analysis;
+    }
+
+    public AnalysisData getAnalysis() {
+        return analysis;
+    }
+}
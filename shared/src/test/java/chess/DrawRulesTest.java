@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRulesTest {
+
+    @Test
+    @DisplayName("Knight Shuffle Repeats Three Times On The Eighth Ply")
+    public void knightShuffleThreefold() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int i = 0; i < shuffle.length; i++) {
+            Assertions.assertFalse(game.isThreefoldRepetition(),
+                    "The start position has only been seen " + (i / 4 + 1) + " times after " + i + " plies");
+            Assertions.assertFalse(game.isGameOver(), "The game should go on after " + i + " plies");
+            ZobristTest.play(game, shuffle[i]);
+        }
+
+        Assertions.assertTrue(game.isThreefoldRepetition(), "The start position has now been seen three times");
+        Assertions.assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.status(ChessGame.TeamColor.WHITE),
+                "Status should report the repetition");
+        Assertions.assertTrue(game.isGameOver(), "A threefold repetition should end the game");
+    }
+
+    @Test
+    @DisplayName("Repetitions Before A Pawn Move Do Not Count")
+    public void pawnMoveClearsRepetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ZobristTest.play(game, "g1f3", "g8f6", "f3g1", "f6g8", "e2e3", "e7e6");
+        ZobristTest.play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertFalse(game.isThreefoldRepetition(),
+                "Positions after the pawn moves have only been seen twice");
+        ZobristTest.play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertTrue(game.isThreefoldRepetition(), "The third occurrence should be a draw");
+    }
+
+    @Test
+    @DisplayName("Fifty-Move Rule Applies At 100 Plies, Not 99")
+    public void fiftyMoveBoundary() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 98 80");
+        ZobristTest.play(game, "a1a2");
+        Assertions.assertEquals(99, game.getHalfmoveClock());
+        Assertions.assertFalse(game.isFiftyMoveDraw(), "99 plies without a capture or pawn move is not yet a draw");
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isGameOver(), "The game should go on at 99 plies");
+
+        ZobristTest.play(game, "e8e7");
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isFiftyMoveDraw(), "100 plies without a capture or pawn move is a draw");
+        Assertions.assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.status(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.isGameOver(), "The fifty-move rule should end the game");
+    }
+
+    @Test
+    @DisplayName("Captures And Pawn Moves Reset The Fifty-Move Count")
+    public void captureAndPawnMoveReset() throws InvalidMoveException {
+        ChessGame pawn = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 80");
+        ZobristTest.play(pawn, "e2e4");
+        Assertions.assertEquals(0, pawn.getHalfmoveClock(), "A pawn move should reset the count");
+
+        ChessGame capture = ChessGame.fromFen("4k3/8/8/8/8/8/r7/R3K3 w - - 99 80");
+        ZobristTest.play(capture, "a1a2");
+        Assertions.assertEquals(0, capture.getHalfmoveClock(), "A capture should reset the count");
+        ZobristTest.play(capture, "e8e7");
+        Assertions.assertFalse(capture.isFiftyMoveDraw(), "The count starts over after a capture");
+        Assertions.assertFalse(capture.isGameOver());
+    }
+
+    @Test
+    @DisplayName("Checkmate Takes Precedence Over The Fifty-Move Rule")
+    public void checkmateBeatsFiftyMoves() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 99 80");
+        ZobristTest.play(game, "d1d8");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.status(ChessGame.TeamColor.BLACK),
+                "A mate on the hundredth ply is still a mate");
+    }
+}
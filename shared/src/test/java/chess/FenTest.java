@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTest {
+
+    @Test
+    @DisplayName("Positions Round Trip Through FEN")
+    public void positionsRoundTrip() {
+        String[] positions = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/ppp2ppp/2n5/3pp3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 3 7",
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2",
+        };
+        for (String fen : positions) {
+            assertEquals(fen, ChessGame.fromFen(fen).toFen());
+        }
+    }
+
+    @Test
+    @DisplayName("Malformed Text Is Rejected")
+    public void malformedTextIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("4k3/8/8/8/8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - a 1"));
+    }
+
+    @Test
+    @DisplayName("Positions No Game Can Reach Are Rejected")
+    public void unreachablePositionsAreRejected() {
+        String[] positions = {
+                // No white king, then two
+                "8/8/8/3k4/8/8/8/QN6 w - - 0 1",
+                "4k3/8/8/8/8/8/8/3KK3 w - - 0 1",
+                // Pawns on the back ranks
+                "4k2P/8/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/p3K3 b - - 0 1",
+                // Too many pieces, and too many pawns
+                "QQQQQQQk/Q6Q/Q6Q/Q6Q/Q2Q3Q/Q6Q/Q6Q/KQQQQQQQ w - - 0 1",
+                "4k3/8/8/8/8/P7/PPPPPPPP/4K3 w - - 0 1",
+                // Black is in check with white to move
+                "4k3/8/8/8/8/8/8/4R1K1 w - - 0 1",
+                // Counters past the range of an int
+                "4k3/8/8/8/8/8/8/4K3 w - - 99999999999 1",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 99999999999",
+        };
+        for (String fen : positions) {
+            assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
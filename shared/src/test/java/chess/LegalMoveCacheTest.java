@@ -0,0 +1,89 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTest {
+
+    /** @return the game's legal moves, sorted, after its legal-move cache has been filled */
+    private static int[] legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        int[] sorted = new int[moves.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = moves.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /** Checks the game's moves against those of a new game that never cached anything. */
+    private static void assertMatchesFreshGame(ChessGame game) {
+        ChessGame fresh = Fen.parse(Fen.format(game));
+        assertArrayEquals(legalMoves(fresh), legalMoves(game), "stale moves in " + Fen.format(game));
+        assertEquals(fresh.status(game.getTeamTurn()), game.status(game.getTeamTurn()));
+    }
+
+    @Test
+    @DisplayName("Making A Move Drops The Cached Moves")
+    public void makeMoveInvalidates() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        legalMoves(game);
+        ZobristTest.play(game, "e2e4");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertMatchesFreshGame(game);
+    }
+
+    @Test
+    @DisplayName("Taking A Move Back Drops The Cached Moves")
+    public void undoMoveInvalidates() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ZobristTest.play(game, "e2e4");
+        legalMoves(game);
+        game.undoMove();
+        assertEquals(20, legalMoves(game).length);
+        assertMatchesFreshGame(game);
+    }
+
+    @Test
+    @DisplayName("Setting A Board Drops The Cached Moves")
+    public void setBoardInvalidates() {
+        ChessGame game = new ChessGame();
+        legalMoves(game);
+        game.setBoard(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1").getBoard());
+        assertMatchesFreshGame(game);
+    }
+
+    @Test
+    @DisplayName("Setting The Turn Drops The Cached Moves")
+    public void setTeamTurnInvalidates() {
+        ChessGame game = new ChessGame();
+        int[] white = legalMoves(game);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertFalse(Arrays.equals(white, legalMoves(game)));
+        assertMatchesFreshGame(game);
+    }
+
+    @Test
+    @DisplayName("Editing The Board Directly Drops The Cached Moves")
+    public void boardEditInvalidates() {
+        ChessGame game = new ChessGame();
+        assertEquals(ChessGame.GameStatus.NORMAL, game.status(ChessGame.TeamColor.WHITE));
+
+        // Black's b8 knight moved to d3 checks the white king; only the pawns can take it
+        game.getBoard().addPiece(ChessPosition.of(8, 2), null);
+        game.getBoard().addPiece(ChessPosition.of(3, 4),
+                ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertEquals(ChessGame.GameStatus.CHECK, game.status(ChessGame.TeamColor.WHITE));
+        assertEquals(2, legalMoves(game).length);
+        assertMatchesFreshGame(game);
+
+        // Taking it away again leaves White its usual twenty moves
+        game.getBoard().addPiece(ChessPosition.of(3, 4), null);
+        assertEquals(20, legalMoves(game).length);
+        assertMatchesFreshGame(game);
+    }
+}
@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the leaf nodes of the legal move tree from well-known positions and
+ * checks them against the published totals, so that any change to move
+ * generation, castling, en passant or promotion that breaks legality shows up.
+ */
+public class PerftTest {
+
+    /** @return the number of legal move sequences of the given length from the position */
+    private static long perft(String fen, int depth) {
+        ChessGame game = Fen.parse(fen);
+        ChessBoard board = game.getBoard();
+        MoveList[] moves = new MoveList[depth];
+        for (int i = 0; i < depth; i++) {
+            moves[i] = new MoveList();
+        }
+        long nodes = perft(board, depth, moves);
+        assertEquals(fen, Fen.format(game), "the board should be back where it started");
+        return nodes;
+    }
+
+    private static long perft(ChessBoard board, int depth, MoveList[] moves) {
+        MoveList list = moves[depth - 1];
+        list.clear();
+        board.generateMoves(list);
+        if (depth == 1) {
+            return list.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            long undo = board.makeMove(list.get(i));
+            nodes += perft(board, depth - 1, moves);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    @Test
+    @DisplayName("Start Position")
+    public void startPosition() {
+        String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        assertEquals(20, perft(fen, 1));
+        assertEquals(400, perft(fen, 2));
+        assertEquals(8902, perft(fen, 3));
+        assertEquals(197281, perft(fen, 4));
+    }
+
+    @Test
+    @DisplayName("Kiwipete: Castling, Pins And Promotions")
+    public void kiwipete() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertEquals(48, perft(fen, 1));
+        assertEquals(2039, perft(fen, 2));
+        assertEquals(97862, perft(fen, 3));
+    }
+
+    @Test
+    @DisplayName("Rook Endgame: En Passant Out Of Discovered Check")
+    public void rookEndgame() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+        assertEquals(14, perft(fen, 1));
+        assertEquals(191, perft(fen, 2));
+        assertEquals(2812, perft(fen, 3));
+        assertEquals(43238, perft(fen, 4));
+    }
+
+    @Test
+    @DisplayName("Promotions And Checks Against A Castled King")
+    public void promotionsAndChecks() {
+        assertEquals(9467, perft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 3));
+        assertEquals(62379, perft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3));
+    }
+}
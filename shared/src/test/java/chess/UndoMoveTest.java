@@ -0,0 +1,92 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UndoMoveTest {
+
+    private record Snapshot(String fen, long key, List<ChessMove> history, int ply) {
+        static Snapshot of(ChessGame game) {
+            return new Snapshot(game.toFen(), game.getZobristKey(), game.getMoveHistory(), game.getPlyCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Undo Restores Castling, En Passant And Promotion Exactly")
+    public void undoRestoresSpecialMoves() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        // En passant, castling short, promotion, a capture of the new queen and castling long
+        String[] moves = {"e5d6", "e8g8", "b7b8q", "a8b8", "e1c1"};
+        List<Snapshot> before = new ArrayList<>();
+        for (String move : moves) {
+            before.add(Snapshot.of(game));
+            ZobristTest.play(game, move);
+        }
+        assertEquals(moves.length, game.getPlyCount());
+        assertEquals("1r3rk1/8/3P4/8/8/8/8/2KR3R b - - 1 3", game.toFen());
+
+        for (int i = moves.length - 1; i >= 0; i--) {
+            ChessMove undone = game.undoMove();
+            assertNotNull(game.getBoard().getPiece(undone.getStartPosition()),
+                    "the moved piece should be back on " + undone.getStartPosition());
+            assertEquals(moves[i], Move.toString(Move.encode(undone)));
+            assertEquals(before.get(i), Snapshot.of(game), "after taking back " + moves[i]);
+        }
+        assertEquals(0, game.getPlyCount());
+        assertTrue(game.getMoveHistory().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Undo Restores The Counters And Lets The Move Be Played Again")
+    public void undoThenReplay() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ZobristTest.play(game, "g1f3", "g8f6", "e2e4");
+        Snapshot afterE4 = Snapshot.of(game);
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 0 2", afterE4.fen());
+
+        game.undoMove();
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/8/5N2/PPPPPPPP/RNBQKB1R w KQkq - 2 2", game.toFen());
+        ZobristTest.play(game, "e2e4");
+        assertEquals(afterE4, Snapshot.of(game));
+    }
+
+    @Test
+    @DisplayName("Undo On A Fresh Game Does Nothing")
+    public void undoOnFreshGame() {
+        ChessGame game = new ChessGame();
+        Snapshot start = Snapshot.of(game);
+        assertNull(game.undoMove());
+        assertEquals(start, Snapshot.of(game));
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+
+        // Setting a board starts the history over, so there is nothing to take back
+        ChessGame set = new ChessGame();
+        set.setBoard(ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").getBoard());
+        assertNull(set.undoMove());
+        assertEquals(0, set.getPlyCount());
+    }
+
+    @Test
+    @DisplayName("A Copied Game Keeps Its History Apart From The Original")
+    public void copyKeepsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ZobristTest.play(game, "g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1");
+        Snapshot original = Snapshot.of(game);
+
+        ChessGame copy = new ChessGame(game);
+        assertEquals(original, Snapshot.of(copy));
+        assertArrayEquals(game.getRepetitionKeys(), copy.getRepetitionKeys());
+        ZobristTest.play(copy, "f6g8");
+        assertTrue(copy.isThreefoldRepetition(), "the copy should count the repetitions played before it");
+        assertEquals(original, Snapshot.of(game), "playing on the copy should leave the original alone");
+
+        copy.undoMove();
+        copy.undoMove();
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/8/5N2/PPPPPPPP/RNBQKB1R w KQkq - 6 4", copy.toFen());
+        assertEquals(original, Snapshot.of(game));
+    }
+}
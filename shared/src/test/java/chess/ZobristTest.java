@@ -0,0 +1,100 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZobristTest {
+    /** Positions with castling, en passant and promotions a few plies away. */
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+    };
+
+    /** @return the key of the board's position computed from scratch by reading it back from FEN */
+    private static long keyFromScratch(ChessGame game) {
+        return Fen.parse(Fen.format(game)).getZobristKey();
+    }
+
+    @Test
+    @DisplayName("Incremental Key Matches A Key Computed From Scratch")
+    public void incrementalKeyMatchesFromScratch() {
+        Random random = new Random(6);
+        int castles = 0;
+        int enPassants = 0;
+        int promotions = 0;
+        MoveList moves = new MoveList();
+        for (int playout = 0; playout < 400; playout++) {
+            ChessGame game = Fen.parse(POSITIONS[playout % POSITIONS.length]);
+            ChessBoard board = game.getBoard();
+            long startKey = board.getZobristKey();
+            assertEquals(keyFromScratch(game), startKey);
+
+            long[] undos = new long[40];
+            long[] keys = new long[40];
+            int plies = 0;
+            while (plies < undos.length) {
+                moves.clear();
+                board.generateMoves(moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                int move = moves.get(random.nextInt(moves.size()));
+                switch (Move.flag(move)) {
+                    case Move.FLAG_CASTLE -> castles++;
+                    case Move.FLAG_EN_PASSANT -> enPassants++;
+                    case Move.FLAG_NORMAL -> {
+                    }
+                    default -> promotions++;
+                }
+                keys[plies] = board.getZobristKey();
+                undos[plies++] = board.makeMove(move);
+                assertEquals(keyFromScratch(game), board.getZobristKey(),
+                        "after " + Move.toString(move) + " reaching " + Fen.format(game));
+            }
+            while (plies > 0) {
+                board.unmakeMove(undos[--plies]);
+                assertEquals(keys[plies], board.getZobristKey(), "after unmaking to " + Fen.format(game));
+                assertEquals(keyFromScratch(game), board.getZobristKey());
+            }
+            assertEquals(startKey, board.getZobristKey());
+        }
+        assertTrue(castles > 0 && enPassants > 0 && promotions > 0,
+                "the playouts should castle, capture en passant and promote");
+    }
+
+    @Test
+    @DisplayName("Positions Reached By Different Move Orders Share A Key")
+    public void transpositionsShareAKey() throws InvalidMoveException {
+        ChessGame knightsFirst = new ChessGame();
+        ChessGame pawnsFirst = new ChessGame();
+        play(knightsFirst, "g1f3", "g8f6", "e2e4", "e7e5");
+        play(pawnsFirst, "e2e4", "e7e5", "g1f3", "g8f6");
+        assertEquals(knightsFirst.getZobristKey(), pawnsFirst.getZobristKey());
+
+        // Losing castling rights changes the key even where the pieces return
+        ChessGame kingWalk = new ChessGame();
+        play(kingWalk, "e2e4", "e7e5", "g1f3", "g8f6", "e1e2", "e8e7", "e2e1", "e7e8");
+        ChessGame knightWalk = new ChessGame();
+        play(knightWalk, "e2e4", "e7e5", "g1f3", "g8f6", "b1c3", "b8c6", "c3b1", "c6b8");
+        assertNotEquals(kingWalk.getZobristKey(), knightWalk.getZobristKey());
+    }
+
+    static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            ChessPosition from = ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+            ChessPosition to = ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+            ChessPiece.PieceType promotion = move.length() < 5 ? null : switch (move.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                default -> ChessPiece.PieceType.KNIGHT;
+            };
+            game.makeMove(ChessMove.of(from, to, promotion));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTest {
+    private Engine engine;
+
+    @BeforeEach
+    public void setup() {
+        engine = new Engine(1);
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void findsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+
+        SearchResult result = engine.search(game, SearchLimits.depth(4));
+
+        assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(8, 4), null),
+                result.bestChessMove(), "Engine should play the back-rank mate");
+        assertTrue(result.isMate(), "Score should be a mate");
+        assertEquals(1, result.mateIn(), "Mate should be in one move");
+    }
+
+    @Test
+    @DisplayName("Captures Hanging Queen")
+    public void capturesHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+
+        SearchResult result = engine.search(game, SearchLimits.depth(3));
+
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.bestChessMove(), "Engine should take the undefended queen");
+        assertTrue(result.score() > 0, "Winning a queen should score in white's favor");
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated")
+    public void noMoveWhenCheckmated() {
+        ChessGame game = ChessGame.fromFen("3R2k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1");
+
+        SearchResult result = engine.search(game, SearchLimits.depth(3));
+
+        assertEquals(Move.NONE, result.bestMove(), "A mated side has no move to play");
+        assertNull(result.bestChessMove());
+    }
+
+    @Test
+    @DisplayName("Node Limit Stops Search")
+    public void nodeLimitStopsSearch() {
+        ChessGame game = new ChessGame();
+
+        SearchResult result = engine.search(game, SearchLimits.nodes(5_000));
+
+        assertNotEquals(Move.NONE, result.bestMove(), "Search should still return a move");
+        assertTrue(result.nodes() < 5_000 + 1024, "Search should stop near the node budget");
+    }
+
+    @Test
+    @DisplayName("Parallel Search Finds Mate In One")
+    public void parallelSearchFindsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+
+        try (Engine parallel = new Engine(1, 4)) {
+            SearchResult result = parallel.search(game, SearchLimits.depth(5));
+
+            assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(8, 4), null),
+                    result.bestChessMove(), "Parallel engine should play the back-rank mate");
+            assertEquals(1, result.mateIn(), "Mate should be in one move");
+        }
+    }
+
+    @Test
+    @DisplayName("Search Leaves Game Unchanged")
+    public void searchLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        String before = game.toFen();
+
+        engine.search(game, SearchLimits.depth(4));
+
+        assertEquals(before, game.toFen(), "Searching must not change the game");
+    }
+
+    @Test
+    @DisplayName("Repeating A Position Played Before The Search Is A Draw")
+    public void repetitionOfPlayedPositionIsDraw() throws InvalidMoveException {
+        String fen = "1r4k1/5ppp/8/8/8/8/5PPP/3Q2K1 b - - 0 1";
+        ChessMove rookOut = new ChessMove(new ChessPosition(8, 2), new ChessPosition(8, 1), null);
+
+        SearchResult fresh = engine.search(ChessGame.fromFen(fen), SearchLimits.depth(4));
+        assertTrue(fresh.score() < -300, "Without the game's history Black is simply a queen for a rook down");
+
+        // The rook and the white king step out and back, so Ra8 repeats the position after the first Ra8
+        ChessGame game = ChessGame.fromFen(fen);
+        game.makeMove(rookOut);
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(1, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 1), new ChessPosition(8, 2), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 7), null));
+        engine.newGame();
+
+        SearchResult result = engine.search(game, SearchLimits.depth(4));
+
+        assertEquals(rookOut, result.bestChessMove(), "Black should repeat the position");
+        assertEquals(Score.DRAW, result.score(), "Repeating a position from the game should score as a draw");
+    }
+
+    @Test
+    @DisplayName("Quiescence Sees The Recapture")
+    public void quiescenceSeesTheRecapture() {
+        // At depth 1 only the quiescence search can see d6xe5 after Qxe5+
+        ChessGame game = ChessGame.fromFen("4k3/8/3p4/4p3/3Q4/8/8/4K3 w - - 0 1");
+
+        SearchResult result = engine.search(game, SearchLimits.depth(1));
+
+        assertNotEquals(new ChessMove(new ChessPosition(4, 4), new ChessPosition(5, 5), null),
+                result.bestChessMove(), "Engine should not give up the queen for a pawn");
+        assertTrue(result.score() > 500, "White should still be a queen up");
+    }
+
+    @Test
+    @DisplayName("Pondering Waits For Ponder Hit")
+    public void ponderingWaitsForPonderHit() throws Exception {
+        ChessGame game = new ChessGame();
+        SearchControl control = SearchControl.pondering();
+
+        CompletableFuture<SearchResult> pondering =
+                CompletableFuture.supplyAsync(() -> engine.search(game, SearchLimits.millis(50), control));
+        Thread.sleep(300);
+        assertFalse(pondering.isDone(), "The time limit should not run while pondering");
+
+        control.ponderHit();
+        SearchResult result = pondering.get(5, TimeUnit.SECONDS);
+
+        assertNotEquals(Move.NONE, result.bestMove(), "A ponder hit should end with a move");
+        assertTrue(result.nanos() >= TimeUnit.MILLISECONDS.toNanos(300), "Pondered time is part of the search");
+    }
+
+    @Test
+    @DisplayName("Stop Before Start Is Not Lost")
+    public void stopBeforeStartIsNotLost() {
+        SearchControl control = new SearchControl();
+        control.stop();
+
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(SearchLimits.MAX_DEPTH), control);
+
+        assertNotEquals(Move.NONE, result.bestMove(), "A stopped search still returns a legal move");
+        assertTrue(result.nodes() < 2 * 1024, "A search stopped before it started should end at its first check");
+    }
+}
@@ -0,0 +1,68 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.MoveList;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    @Test
+    @DisplayName("Start Position Is Even")
+    public void startPositionIsEven() {
+        assertEquals(0, Evaluation.evaluate(new ChessGame().getBoard()), "The start position is symmetric");
+    }
+
+    @Test
+    @DisplayName("Extra Material Scores For Its Owner")
+    public void extraMaterialScoresForItsOwner() {
+        ChessBoard board = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1").getBoard();
+
+        assertTrue(Evaluation.evaluate(board) > 400, "White is a rook up");
+        board.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertTrue(Evaluation.evaluate(board) < -400, "Black to move is a rook down");
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches Full Scan")
+    public void incrementalScoreMatchesFullScan() {
+        // Kiwipete and a promotion-heavy position cover castling, en passant and promotions
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+        };
+        Random random = new Random(240);
+        Evaluator evaluator = new Evaluator(SearchWorker.MAX_PLY);
+        MoveList moves = new MoveList();
+        for (String fen : fens) {
+            for (int game = 0; game < 50; game++) {
+                ChessBoard board = ChessGame.fromFen(fen).getBoard();
+                evaluator.reset(board);
+                long[] undos = new long[60];
+                int ply = 0;
+                while (ply < undos.length) {
+                    moves.clear();
+                    board.generateMoves(moves);
+                    if (moves.isEmpty()) {
+                        break;
+                    }
+                    int move = moves.get(random.nextInt(moves.size()));
+                    evaluator.makeMove(board, move);
+                    undos[ply++] = board.makeMove(move);
+                    assertEquals(Evaluation.evaluate(board), evaluator.evaluate(board.getTeamTurn()),
+                            "Incremental score drifted while making moves");
+                }
+                while (ply > 0) {
+                    board.unmakeMove(undos[--ply]);
+                    evaluator.unmakeMove();
+                    assertEquals(Evaluation.evaluate(board), evaluator.evaluate(board.getTeamTurn()),
+                            "Incremental score drifted while unmaking moves");
+                }
+            }
+        }
+    }
+}
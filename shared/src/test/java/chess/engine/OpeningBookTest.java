@@ -0,0 +1,139 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+    @TempDir
+    Path dir;
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : moves) {
+            game.makeMove(new ChessMove(position(move, 0), position(move, 2), null));
+        }
+        return game;
+    }
+
+    private static ChessPosition position(String move, int at) {
+        return new ChessPosition(move.charAt(at + 1) - '0', move.charAt(at) - 'a' + 1);
+    }
+
+    private OpeningBook build(int maxPly, ChessGame... games) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        for (ChessGame game : games) {
+            builder.addGame(game);
+        }
+        Path file = dir.resolve("book.bin");
+        builder.write(file);
+        return OpeningBook.open(file);
+    }
+
+    @Test
+    @DisplayName("Moves Are Weighted By How Often They Were Played")
+    public void movesAreWeightedByPlayCount() throws Exception {
+        OpeningBook book = build(4, play("e2e4", "e7e5"), play("e2e4", "c7c5"), play("d2d4", "d7d5"));
+
+        List<OpeningBook.Entry> start = book.lookup(new ChessGame().getBoard());
+        assertEquals(2, start.size());
+        assertEquals("e2e4", Move.toString(start.get(0).move()));
+        assertEquals(2, start.get(0).weight());
+        assertEquals("d2d4", Move.toString(start.get(1).move()));
+        assertEquals(1, start.get(1).weight());
+
+        List<OpeningBook.Entry> afterE4 = book.lookup(play("e2e4").getBoard());
+        assertEquals(2, afterE4.size());
+        assertEquals(5, book.size());
+    }
+
+    @Test
+    @DisplayName("Plies Past The Limit And Unknown Positions Are Not In The Book")
+    public void pliesPastTheLimitAreLeftOut() throws Exception {
+        OpeningBook book = build(2, play("g1f3", "g8f6", "c2c4", "e7e6"));
+
+        assertEquals(1, book.lookup(play("g1f3").getBoard()).size());
+        assertTrue(book.lookup(play("g1f3", "g8f6").getBoard()).isEmpty());
+        assertTrue(book.lookup(play("a2a3").getBoard()).isEmpty());
+        assertEquals(Move.NONE, book.pick(play("a2a3").getBoard(), new Random(1)));
+    }
+
+    @Test
+    @DisplayName("Castling Round-Trips Through The Polyglot Encoding")
+    public void castlingRoundTrips() throws Exception {
+        String[] opening = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "e1g1"};
+        OpeningBook book = build(10, play(opening));
+
+        ChessBoard board = play(Arrays.copyOf(opening, 6)).getBoard();
+        int castle = book.pick(board, new Random(1));
+        assertEquals(Move.FLAG_CASTLE, Move.flag(castle));
+        assertEquals("e1g1", Move.toString(castle));
+        // Polyglot writes castling as the king taking its rook
+        assertEquals(7 | 4 << 6, OpeningBook.encode(castle));
+    }
+
+    @Test
+    @DisplayName("Games From Other Start Positions Are Skipped")
+    public void otherStartPositionsAreSkipped() throws Exception {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        assertEquals(0, new OpeningBookBuilder(10).addGame(game));
+    }
+
+    @Test
+    @DisplayName("Picks Follow The Weights")
+    public void picksFollowTheWeights() throws Exception {
+        ChessGame[] games = new ChessGame[4];
+        for (int i = 0; i < 3; i++) {
+            games[i] = play("e2e4");
+        }
+        games[3] = play("d2d4");
+        OpeningBook book = build(1, games);
+
+        Random random = new Random(7);
+        int e4 = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (Move.toString(book.pick(new ChessGame().getBoard(), random)).equals("e2e4")) {
+                e4++;
+            }
+        }
+        assertTrue(e4 > 2800 && e4 < 3200, "e2e4 picked " + e4 + " times of 4000");
+    }
+
+    @Test
+    @DisplayName("Moves Played In Too Few Games Are Not Picked")
+    public void picksSkipRareMoves() throws Exception {
+        OpeningBook book = build(1, play("e2e4"), play("e2e4"), play("e2e4"), play("d2d4"), play("c2c4"));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("e2e4", Move.toString(book.pick(new ChessGame().getBoard(), random, 3)));
+        }
+        assertEquals(Move.NONE, book.pick(new ChessGame().getBoard(), random, 4),
+                "No move was played often enough to be trusted");
+        assertEquals(3, book.lookup(new ChessGame().getBoard()).size(), "The rare moves stay in the book");
+    }
+
+    @Test
+    @DisplayName("Files That Are Not Whole Entries Are Rejected")
+    public void truncatedFilesAreRejected() throws Exception {
+        Path file = dir.resolve("broken.bin");
+        Files.write(file, new byte[OpeningBook.ENTRY_BYTES + 3]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
@@ -0,0 +1,79 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTest {
+    private final StaticExchange exchange = new StaticExchange();
+
+    private int see(String fen, int from, int to) {
+        ChessBoard board = ChessGame.fromFen(fen).getBoard();
+        return exchange.evaluate(board, board.encode(Move.toChessMove(Move.encode(from, to, Move.FLAG_NORMAL))));
+    }
+
+    @Test
+    @DisplayName("Undefended Piece Is Won Outright")
+    public void undefendedPieceIsWon() {
+        // Rook e1 takes the undefended pawn on e5
+        assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", 4, 36));
+    }
+
+    @Test
+    @DisplayName("Defended Pawn Costs The Queen")
+    public void defendedPawnCostsTheQueen() {
+        // Queen d4 takes e5, and the pawn on d6 takes back
+        assertEquals(100 - 900, see("4k3/8/3p4/4p3/3Q4/8/8/4K3 w - - 0 1", 27, 36));
+    }
+
+    @Test
+    @DisplayName("X-Ray Attackers Join The Exchange")
+    public void xRayAttackersJoin() {
+        // The knight on d7 and the bishop on f6, backed by the queen on h8, guard e5
+        assertEquals(100 - 320, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1Q2P/2K1R3 w - - 0 1", 19, 36));
+    }
+
+    @Test
+    @DisplayName("En Passant Wins A Pawn")
+    public void enPassantWinsAPawn() {
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", 36, 43));
+    }
+
+    @Test
+    @DisplayName("Capture Generation Matches Full Generation")
+    public void captureGenerationMatchesFullGeneration() {
+        Random random = new Random(240);
+        MoveList all = new MoveList();
+        MoveList captures = new MoveList();
+        for (int game = 0; game < 50; game++) {
+            ChessBoard board = ChessGame.fromFen(
+                    "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1").getBoard();
+            for (int ply = 0; ply < 60; ply++) {
+                all.clear();
+                board.generateMoves(all);
+                if (all.isEmpty()) {
+                    break;
+                }
+                captures.clear();
+                board.generateCaptures(captures);
+                int expected = 0;
+                for (int i = 0; i < all.size(); i++) {
+                    int move = all.get(i);
+                    if (Move.flag(move) == Move.FLAG_EN_PASSANT || Move.promotion(move) != null
+                            || (board.getOccupancy() & 1L << Move.to(move)) != 0) {
+                        expected++;
+                        assertTrue(captures.contains(move), "Missing capture " + Move.toString(move));
+                    }
+                }
+                assertEquals(expected, captures.size(), "Capture list should hold only captures and promotions");
+                board.makeMove(all.get(random.nextInt(all.size())));
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTest {
+    private static final Map<Endgame, byte[]> TABLES = new EnumMap<>(Endgame.class);
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() {
+        Map<Endgame, ByteBuffer> buffers = new EnumMap<>(Endgame.class);
+        // KBNK takes most of the generation time and is left to the offline tool
+        for (Endgame endgame : new Endgame[]{Endgame.KQK, Endgame.KRK, Endgame.KPK}) {
+            byte[] table = TablebaseGenerator.generate(endgame, new Tablebases(buffers));
+            TABLES.put(endgame, table);
+            buffers.put(endgame, ByteBuffer.wrap(table));
+        }
+        tablebases = new Tablebases(buffers);
+    }
+
+    private static int probe(String fen) {
+        return tablebases.probe(ChessGame.fromFen(fen).getBoard());
+    }
+
+    /** @return the longest mate in the table with the strong side to move, in plies */
+    private static int longestMate(Endgame endgame) {
+        byte[] table = TABLES.get(endgame);
+        int longest = 0;
+        for (int i = 0; i < table.length / 2; i++) {
+            if (table[i] != (byte) Tablebases.ILLEGAL) {
+                longest = Math.max(longest, (table[i] & 0xFF) - 1);
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match The Known Maximums")
+    public void longestMatesMatchKnownMaximums() {
+        // Mate in 10 with a queen and in 16 with a rook, from the strong side to move
+        assertEquals(19, longestMate(Endgame.KQK));
+        assertEquals(31, longestMate(Endgame.KRK));
+    }
+
+    @Test
+    @DisplayName("King And Pawn Endings Are Won Or Drawn As Theory Says")
+    public void kingAndPawnTheory() {
+        // King on the sixth rank in front of its pawn wins whoever is to move
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1") > 0);
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1") < 0);
+        // A rook pawn with the defending king in the corner is a draw
+        assertEquals(0, probe("k7/8/K7/P7/8/8/8/8 w - - 0 1"));
+        assertEquals(0, probe("k7/8/K7/P7/8/8/8/8 b - - 0 1"));
+        // The defending king in front of the pawn with the opposition holds
+        assertEquals(0, probe("8/8/8/8/4k3/8/4P3/4K3 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Either Color Can Be The Strong Side")
+    public void eitherColorCanBeStrong() {
+        assertEquals(probe("8/8/8/3k4/8/8/3K4/7R w - - 0 1"), probe("7r/3k4/8/8/3K4/8/8/8 b - - 0 1"));
+        assertEquals(probe("8/8/8/8/4k3/4P3/8/4K3 b - - 0 1"), probe("4k3/8/4p3/4K3/8/8/8/8 w - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Every Score Follows From The Scores After Each Move")
+    public void scoresAreConsistent() {
+        Random random = new Random(3);
+        int checked = 0;
+        while (checked < 3000) {
+            ChessBoard board = randomBoard(random, random.nextBoolean() ? 'R' : 'P');
+            int score = board == null ? Tablebases.NOT_FOUND : tablebases.probe(board);
+            if (score == Tablebases.NOT_FOUND) {
+                continue;
+            }
+            checked++;
+            MoveList moves = new MoveList();
+            board.generateMoves(moves);
+            int expected = moves.isEmpty() && board.isInCheck(board.getTeamTurn()) ? -Score.MATE : Score.DRAW;
+            for (int i = 0; i < moves.size(); i++) {
+                long undo = board.makeMove(moves.get(i));
+                int child = tablebases.probe(board);
+                board.unmakeMove(undo);
+                // Anything off the tables here is a lone minor piece or bare kings
+                int parent = child == Tablebases.NOT_FOUND || child == 0 ? 0 : child > 0 ? -child + 1 : -child - 1;
+                expected = i == 0 ? parent : Math.max(expected, parent);
+            }
+            assertEquals(expected, score, board.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Solved Line Ends In Mate")
+    public void solvedLineEndsInMate() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("8/8/8/3k4/8/8/3K4/7R w - - 0 1");
+        SearchResult result = tablebases.solve(game.getBoard());
+
+        assertTrue(result.isMate());
+        assertEquals(result.depth(), 2 * result.mateIn() - 1);
+        for (var move : result.principalVariationMoves()) {
+            game.makeMove(move);
+        }
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Engine Answers Covered Positions From The Tables")
+    public void engineUsesTablebases() {
+        try (Engine engine = new Engine()) {
+            engine.setTablebases(tablebases);
+            SearchResult result = engine.search(ChessGame.fromFen("8/8/8/3k4/8/8/3K4/7R w - - 0 1"),
+                    SearchLimits.depth(1));
+            assertEquals(probe("8/8/8/3k4/8/8/3K4/7R w - - 0 1"), result.score());
+            assertTrue(result.isMate());
+
+            // A capture into the tables is scored from them inside the search
+            SearchResult capture = engine.search(ChessGame.fromFen("8/8/8/3k4/8/3n4/3K4/7R w - - 0 1"),
+                    SearchLimits.depth(2));
+            assertEquals("d2d3", Move.toString(capture.bestMove()));
+            assertTrue(capture.isMate(), capture.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Positions With Castling Or Other Material Are Not Covered")
+    public void uncoveredPositions() {
+        assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/3k4/8/8/8/4K2R w K - 0 1"));
+        assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/3k4/8/8/8/2B1K1N1 w - - 0 1"));
+        assertEquals(Tablebases.NOT_FOUND, probe("8/8/8/3k4/8/8/8/RNB1KBNR w - - 0 1"));
+        assertNull(tablebases.solve(new ChessGame().getBoard()));
+    }
+
+    @Test
+    @DisplayName("Boards Without A King On Each Side Are Not Covered")
+    public void boardsWithoutKingsAreNotCovered() {
+        // Set up by hand, since FEN would turn both away
+        ChessBoard noWhiteKing = new ChessBoard();
+        place(noWhiteKing, 5, 4, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        place(noWhiteKing, 1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+        place(noWhiteKing, 1, 2, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        ChessBoard noBlackKing = new ChessBoard();
+        place(noBlackKing, 2, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        place(noBlackKing, 1, 8, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        place(noBlackKing, 5, 4, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+
+        for (ChessBoard board : new ChessBoard[]{noWhiteKing, noBlackKing}) {
+            assertEquals(Tablebases.NOT_FOUND, tablebases.probe(board));
+            assertNull(tablebases.solve(board));
+        }
+    }
+
+    @Test
+    @DisplayName("Tables Are Mapped From Files Of The Right Size")
+    public void tablesAreMappedFromFiles(@TempDir Path dir) throws IOException {
+        Files.write(dir.resolve("KQK.tb"), TABLES.get(Endgame.KQK));
+        Tablebases opened = Tablebases.open(dir);
+        assertEquals(Set.of(Endgame.KQK), opened.endgames());
+        assertEquals(probe("8/8/8/3k4/8/8/3K3Q/8 w - - 0 1"), opened.probe(
+                ChessGame.fromFen("8/8/8/3k4/8/8/3K3Q/8 w - - 0 1").getBoard()));
+
+        Files.write(dir.resolve("KRK.tb"), new byte[10]);
+        assertThrows(IOException.class, () -> Tablebases.open(dir));
+    }
+
+    private static void place(ChessBoard board, int row, int col, ChessGame.TeamColor color,
+                              ChessPiece.PieceType type) {
+        board.addPiece(new ChessPosition(row, col), ChessPiece.of(color, type));
+    }
+
+    /** @return a random board of king and piece against king, or null if the position is not legal */
+    private static ChessBoard randomBoard(Random random, char piece) {
+        String[] squares = new String[64];
+        int[] picks = random.ints(0, 64).distinct().limit(3).toArray();
+        squares[picks[0]] = "K";
+        squares[picks[1]] = "k";
+        squares[picks[2]] = String.valueOf(piece);
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                String square = squares[rank * 8 + file];
+                if (square == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(square);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            fen.append(rank > 0 ? "/" : "");
+        }
+        fen.append(random.nextBoolean() ? " w" : " b").append(" - - 0 1");
+        try {
+            return ChessGame.fromFen(fen).getBoard();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package chess.engine;
+
+import chess.Move;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+    private static final int MOVE = Move.encode(12, 28, Move.FLAG_NORMAL);
+
+    private TranspositionTable table;
+
+    @BeforeEach
+    public void setup() {
+        table = new TranspositionTable(1);
+    }
+
+    @Test
+    @DisplayName("Size Rounds To Power Of Two")
+    public void sizeRoundsToPowerOfTwo() {
+        assertEquals(1 << 16, table.capacity(), "1 MB holds 65536 16-byte entries");
+        assertEquals(1 << 17, new TranspositionTable(3).capacity(), "3 MB rounds down to 2 MB");
+    }
+
+    @Test
+    @DisplayName("Stored Entry Is Found")
+    public void storedEntryIsFound() {
+        table.store(KEY, MOVE, -250, 7, TranspositionTable.BOUND_LOWER);
+
+        long entry = table.probe(KEY);
+
+        assertEquals(MOVE, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry), "Negative scores must survive packing");
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    @DisplayName("Other Key In Same Slot Misses")
+    public void otherKeyInSameSlotMisses() {
+        table.store(KEY, MOVE, 10, 3, TranspositionTable.BOUND_EXACT);
+
+        assertEquals(0L, table.probe(KEY ^ (1L << 40)), "A key sharing the slot must not match");
+    }
+
+    @Test
+    @DisplayName("Clear Empties Table")
+    public void clearEmptiesTable() {
+        table.store(KEY, MOVE, 10, 3, TranspositionTable.BOUND_EXACT);
+
+        table.clear();
+
+        assertEquals(0L, table.probe(KEY));
+    }
+
+    @Test
+    @DisplayName("Shallower Result Keeps Deeper Entry")
+    public void shallowerResultKeepsDeeperEntry() {
+        long other = KEY ^ (1L << 40);
+        table.store(KEY, MOVE, 10, 9, TranspositionTable.BOUND_EXACT);
+
+        table.store(other, Move.NONE, 20, 2, TranspositionTable.BOUND_UPPER);
+
+        assertNotEquals(0L, table.probe(KEY), "A deeper entry from this search should not be replaced");
+        assertEquals(0L, table.probe(other));
+    }
+}
@@ -51,6 +51,26 @@ public class ChessBoardTests extends EqualsTestingUtility<ChessBoard> {
                 "ChessPiece returned by getPiece had the wrong team color");
     }
 
+    @Test
+    @DisplayName("Positions Off the Board")
+    public void offBoardPositions() {
+        var board = new ChessBoard();
+        board.resetBoard();
+
+        // Neighbors of real squares, which a row-major index would land on
+        for (ChessPosition position : new ChessPosition[]{
+                new ChessPosition(1, 9), new ChessPosition(0, 0), new ChessPosition(9, 8),
+                new ChessPosition(2, 0), new ChessPosition(8, 9)}) {
+            Assertions.assertNull(board.getPiece(position),
+                    "getPiece should return null for a position off the board: " + position);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> board.addPiece(position,
+                    new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)),
+                    "addPiece should reject a position off the board: " + position);
+        }
+        Assertions.assertEquals(TestUtilities.defaultBoard(), board,
+                "Rejected pieces should leave the board unchanged");
+    }
+
     @Test
     @DisplayName("Reset Board")
     public void defaultGameBoard() {
@@ -0,0 +1,101 @@
+package passoff.chess.game;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.EqualsTestingUtility;
+import passoff.chess.TestUtilities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+public class ChessGameTests extends EqualsTestingUtility<ChessGame> {
+    public ChessGameTests() {
+        super("ChessGame", "games");
+    }
+
+    @Override
+    protected ChessGame buildOriginal() {
+        return new ChessGame();
+    }
+
+    @Override
+    protected Collection<ChessGame> buildAllDifferent() {
+        Collection<ChessGame> differentGames = new ArrayList<>();
+
+        try {
+            // Different team turn
+            ChessGame game1 = new ChessGame();
+            game1.setTeamTurn(ChessGame.TeamColor.BLACK);
+            differentGames.add(game1);
+
+            // Move pawn
+            ChessGame game2 = new ChessGame();
+            game2.makeMove(new ChessMove(
+                    new ChessPosition(2, 5),
+                    new ChessPosition(4, 5),
+                    null));
+            differentGames.add(game2);
+
+            // Move knight
+            ChessGame game3 = new ChessGame();
+            game3.makeMove(new ChessMove(
+                    new ChessPosition(1, 7),
+                    new ChessPosition(3, 6),
+                    null));
+            differentGames.add(game3);
+
+            // Set board
+            ChessGame game4 = new ChessGame();
+            game4.setBoard(TestUtilities.loadBoard("""
+                    | | | |R| | | | |
+                    | | | | | | | | |
+                    | | |p|n|p| | | |
+                    |R| |n|k|r| | |R|
+                    | | |p|q| | | | |
+                    | | | | | |K| | |
+                    | | | | |P| | | |
+                    | | | |R| | | | |
+                    """));
+            differentGames.add(game4);
+
+        } catch (InvalidMoveException e) {
+            throw new RuntimeException("All moves in ChessGameTests are valid and should be allowed.", e);
+        }
+
+        return differentGames;
+    }
+
+    @Test
+    @DisplayName("Equal Games With Different Castling Rights Hash Alike")
+    public void equalGamesHashAlike() throws InvalidMoveException {
+        // The kings walk out and back, losing their castling rights but not their squares
+        ChessGame castlingKept = new ChessGame();
+        play(castlingKept, 2, 5, 4, 5);
+        play(castlingKept, 7, 5, 5, 5);
+        ChessGame castlingLost = new ChessGame();
+        play(castlingLost, 2, 5, 4, 5);
+        play(castlingLost, 7, 5, 5, 5);
+        play(castlingLost, 1, 5, 2, 5);
+        play(castlingLost, 8, 5, 7, 5);
+        play(castlingLost, 2, 5, 1, 5);
+        play(castlingLost, 7, 5, 8, 5);
+
+        Assertions.assertEquals(castlingKept, castlingLost, "Games with the same pieces and turn should be equal");
+        Assertions.assertEquals(castlingKept.hashCode(), castlingLost.hashCode(),
+                "ChessGame.hashCode() returned different values for equal games");
+        Assertions.assertTrue(new HashSet<>(List.of(castlingKept)).contains(castlingLost),
+                "An equal game should be found in a HashSet");
+    }
+
+    private static void play(ChessGame game, int startRow, int startCol, int endRow, int endCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null));
+    }
+}